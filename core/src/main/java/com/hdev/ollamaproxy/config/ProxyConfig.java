@@ -0,0 +1,41 @@
+package com.hdev.ollamaproxy.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Plain runtime configuration for the proxy, free of any IntelliJ classes.
+ * The plugin derives it from {@code AppSettingsState}; the standalone launcher
+ * reads it from a properties file and the environment.
+ */
+public class ProxyConfig {
+
+    public ServiceType serviceType = ServiceType.OPENAI_COMPATIBLE;
+
+    public String apiKey = "";
+    public String baseUrl = "https://api.openai.com/v1/";
+    public int port = 11434;
+    public int contextWindowTokens = 0;
+    public boolean trimPromptToContext = false;
+
+    // Client API key -> tenant name. Empty means the proxy accepts unauthenticated requests.
+    public Map<String, String> clientKeys = new LinkedHashMap<>();
+    // Key for the admin endpoints (traces). Required there whenever client keys are set.
+    public String adminKey = "";
+
+    // Fraction of chat requests captured by the tracer, between 0 and 1.
+    public double traceSampleRate = 0.1;
+    // Whether traces keep message and chunk text (API keys are always redacted).
+    public boolean traceIncludeContent = false;
+    // Directory for rolling trace files; null keeps traces in memory only.
+    public String traceDirectory = null;
+
+    // How long fetched model metadata (context length, pricing, ...) is served before a background refresh.
+    public long modelCacheTtlSeconds = 3600;
+
+    // Streams are aborted after this many times the model's p99 time-to-first-token or chunk gap.
+    public double stallMultiplier = 5.0;
+
+    // How long stop() waits for in-flight requests before closing the server.
+    public int shutdownGraceSeconds = 0;
+}
@@ -0,0 +1,18 @@
+package com.hdev.ollamaproxy.config;
+
+// Enum to define the supported service types
+public enum ServiceType {
+    OPENAI_COMPATIBLE("OpenAI-Compatible (OpenRouter, etc.)"),
+    OPEN_WEBUI("OpenWebUI");
+
+    private final String displayName;
+
+    ServiceType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
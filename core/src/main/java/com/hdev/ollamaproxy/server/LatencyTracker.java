@@ -0,0 +1,103 @@
+package com.hdev.ollamaproxy.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free per-model latency histograms for time-to-first-token (TTFT), the gap
+ * between consecutive stream chunks and the duration of non-streamed responses. Buckets grow geometrically by 25% from 1 ms, so
+ * percentiles are accurate to within one bucket from milliseconds up to about 20 minutes.
+ */
+public class LatencyTracker {
+
+    private static final int BUCKETS = 64;
+    private static final double GROWTH = Math.log(1.25);
+    // Once a histogram holds this many samples it is halved, so old behaviour fades out.
+    private static final long DECAY_THRESHOLD = 10_000;
+
+    private final Map<String, ModelLatency> models = new ConcurrentHashMap<>();
+
+    public ModelLatency forModel(String model) {
+        return models.computeIfAbsent(model, m -> new ModelLatency());
+    }
+
+    public Map<String, ModelLatency> snapshot() {
+        return Map.copyOf(models);
+    }
+
+    public static final class ModelLatency {
+        private final Histogram ttft = new Histogram();
+        private final Histogram chunkGap = new Histogram();
+        private final Histogram response = new Histogram();
+
+        void recordTtft(long millis) {
+            ttft.record(millis);
+        }
+
+        void recordChunkGap(long millis) {
+            chunkGap.record(millis);
+        }
+
+        void recordResponse(long millis) {
+            response.record(millis);
+        }
+
+        public Histogram ttft() {
+            return ttft;
+        }
+
+        public Histogram chunkGap() {
+            return chunkGap;
+        }
+
+        public Histogram response() {
+            return response;
+        }
+    }
+
+    public static final class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        void record(long millis) {
+            int bucket = millis <= 1 ? 0 : Math.min(BUCKETS - 1, (int) Math.ceil(Math.log(millis) / GROWTH));
+            counts.incrementAndGet(bucket);
+            if (count() > DECAY_THRESHOLD) {
+                // Racy by design: a concurrent increment may be halved too, which is harmless here.
+                for (int i = 0; i < BUCKETS; i++) {
+                    long c = counts.get(i);
+                    counts.compareAndSet(i, c, c / 2);
+                }
+            }
+        }
+
+        public long count() {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        /** Upper bound, in milliseconds, of the bucket containing the given percentile (0-1). */
+        public long percentile(double p) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(p * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(BUCKETS - 1);
+        }
+
+        private static long upperBound(int bucket) {
+            return (long) Math.ceil(Math.exp(bucket * GROWTH));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches model metadata (context length, max output, capabilities, pricing) from the
+ * provider's model list so {@code /api/tags} and {@code /api/show} never wait on upstream.
+ * <p>
+ * The first fetch is started in the background when the proxy starts, in parallel with
+ * everything else. After the TTL, callers keep getting the stale snapshot while a single
+ * background refresh replaces it. Only a request that arrives before the very first fetch
+ * completes has to wait for it.
+ */
+public class ModelMetadataCache {
+    private static final Logger LOG = Logger.getLogger(ModelMetadataCache.class.getName());
+
+    private static final long FIRST_FETCH_WAIT_SECONDS = 30;
+
+    private final ProviderClient providerClient;
+    private final long ttlNanos;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<Snapshot>> refreshing = new AtomicReference<>();
+    private final LongAdder fetchFailures = new LongAdder();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ollama-proxy-model-metadata");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ModelMetadataCache(ProviderClient providerClient, long ttlSeconds) {
+        this.providerClient = providerClient;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /** Starts the initial fetch without waiting for it; the future completes when it is done. */
+    public CompletableFuture<?> prefetch() {
+        return refresh();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Milliseconds since the model list was last fetched successfully, or -1 if it never was. */
+    public long getFetchAgeMillis() {
+        Snapshot current = snapshot.get();
+        return current != null ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.fetchedAtNanos) : -1;
+    }
+
+    /** Fetches of the model list that failed since startup. */
+    public long getFetchFailures() {
+        return fetchFailures.sum();
+    }
+
+    /** All known models, in the order the provider listed them. */
+    public List<ModelInfo> models() throws Exception {
+        return current().models;
+    }
+
+    /** Metadata for one model, or null if the provider does not list it. */
+    public ModelInfo get(String model) throws Exception {
+        return current().byId.get(model);
+    }
+
+    /** Like {@link #get}, but never blocks and never throws; null if not cached yet. */
+    public ModelInfo peek(String model) {
+        Snapshot current = snapshot.get();
+        return current != null ? current.byId.get(model) : null;
+    }
+
+    private Snapshot current() throws Exception {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            return refresh().get(FIRST_FETCH_WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+        if (System.nanoTime() - current.fetchedAtNanos > ttlNanos) {
+            refresh();
+        }
+        return current;
+    }
+
+    // Single-flight: concurrent callers share one in-progress fetch.
+    private CompletableFuture<Snapshot> refresh() {
+        CompletableFuture<Snapshot> future = new CompletableFuture<>();
+        if (!refreshing.compareAndSet(null, future)) {
+            CompletableFuture<Snapshot> inFlight = refreshing.get();
+            return inFlight != null ? inFlight : refresh();
+        }
+        executor.execute(() -> {
+            try {
+                Snapshot fetched = fetch();
+                snapshot.set(fetched);
+                future.complete(fetched);
+            } catch (Throwable e) {
+                fetchFailures.increment();
+                LOG.log(Level.WARNING, "Failed to fetch model metadata", e);
+                future.completeExceptionally(e);
+            } finally {
+                refreshing.set(null);
+            }
+        });
+        return future;
+    }
+
+    private Snapshot fetch() throws Exception {
+        JsonNode data = mapper.readTree(providerClient.getModels()).path("data");
+        List<ModelInfo> models = new ArrayList<>();
+        for (JsonNode node : data) {
+            if (node.hasNonNull("id")) {
+                models.add(ModelInfo.from(node));
+            }
+        }
+        return new Snapshot(models);
+    }
+
+    private static final class Snapshot {
+        final long fetchedAtNanos = System.nanoTime();
+        final List<ModelInfo> models;
+        final Map<String, ModelInfo> byId = new LinkedHashMap<>();
+
+        Snapshot(List<ModelInfo> models) {
+            this.models = Collections.unmodifiableList(models);
+            for (ModelInfo model : models) {
+                byId.put(model.id, model);
+            }
+        }
+    }
+
+    /**
+     * Metadata of one upstream model. Fields the provider does not report are null;
+     * OpenRouter reports all of them, plain OpenAI-compatible endpoints often only the id.
+     */
+    public static final class ModelInfo {
+        public final String id;
+        public final Integer contextLength;
+        public final Integer maxOutputTokens;
+        public final List<String> capabilities;
+        // USD per token, as reported by the provider.
+        public final String promptPrice;
+        public final String completionPrice;
+        // Epoch seconds.
+        public final Long created;
+        public final long size;
+        public final String digest;
+
+        private ModelInfo(String id, Integer contextLength, Integer maxOutputTokens, List<String> capabilities,
+                          String promptPrice, String completionPrice, Long created, long size, String digest) {
+            this.id = id;
+            this.contextLength = contextLength;
+            this.maxOutputTokens = maxOutputTokens;
+            this.capabilities = capabilities;
+            this.promptPrice = promptPrice;
+            this.completionPrice = completionPrice;
+            this.created = created;
+            this.size = size;
+            this.digest = digest;
+        }
+
+        static ModelInfo from(JsonNode node) {
+            String id = node.get("id").asText();
+            JsonNode topProvider = node.path("top_provider");
+            // OpenWebUI passes through Ollama's own model details when the backend is Ollama.
+            JsonNode ollama = node.path("ollama");
+
+            Integer contextLength = firstInt(node.path("context_length"), topProvider.path("context_length"),
+                    node.path("context_window"), node.path("max_context_length"));
+            Integer maxOutput = firstInt(topProvider.path("max_completion_tokens"),
+                    node.path("max_output_tokens"), node.path("max_completion_tokens"));
+
+            List<String> capabilities = new ArrayList<>();
+            capabilities.add("completion");
+            List<String> parameters = new ArrayList<>();
+            node.path("supported_parameters").forEach(p -> parameters.add(p.asText()));
+            if (parameters.contains("tools")) {
+                capabilities.add("tools");
+            }
+            if (parameters.contains("reasoning") || parameters.contains("include_reasoning")) {
+                capabilities.add("thinking");
+            }
+            for (JsonNode modality : node.path("architecture").path("input_modalities")) {
+                if ("image".equals(modality.asText())) {
+                    capabilities.add("vision");
+                }
+            }
+
+            JsonNode pricing = node.path("pricing");
+            return new ModelInfo(id, contextLength, maxOutput, Collections.unmodifiableList(capabilities),
+                    pricing.hasNonNull("prompt") ? pricing.get("prompt").asText() : null,
+                    pricing.hasNonNull("completion") ? pricing.get("completion").asText() : null,
+                    node.path("created").canConvertToLong() && node.path("created").asLong() > 0
+                            ? node.get("created").asLong() : null,
+                    ollama.path("size").asLong(0),
+                    ollama.hasNonNull("digest") ? ollama.get("digest").asText() : sha256(id));
+        }
+
+        private static Integer firstInt(JsonNode... candidates) {
+            for (JsonNode candidate : candidates) {
+                if (candidate.canConvertToInt() && candidate.asInt() > 0) {
+                    return candidate.asInt();
+                }
+            }
+            return null;
+        }
+
+        // Remote models have no real digest, so use a stable one derived from the id.
+        private static String sha256(String text) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.hdev.ollamaproxy.config.ProxyConfig;
+import com.hdev.ollamaproxy.config.ServiceType;
+import com.hdev.ollamaproxy.trace.RequestTrace;
+import com.hdev.ollamaproxy.trace.Tracer;
+import io.javalin.http.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class OllamaProxyHandler {
+    private static final Logger LOG = Logger.getLogger(OllamaProxyHandler.class.getName());
+
+    // How often a stream that stalls before anything reached the client is retried.
+    private static final int MAX_STALL_RETRIES = 1;
+    // Share of the context window kept free for the reply when nothing better is known (1/4).
+    private static final int DEFAULT_REPLY_RESERVE_DIVISOR = 4;
+    /** Metrics and latency key shared by all model names the provider does not list. */
+    public static final String UNLISTED_MODEL = "(unlisted)";
+
+    private final ProviderClient providerClient;
+    private final ServiceType serviceType;
+    private final int contextWindowTokens;
+    private final boolean trimPromptToContext;
+    private final Tracer tracer;
+    private final StallDetector stallDetector;
+    private final ModelMetadataCache modelMetadata;
+    private final ProxyMetrics metrics;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public OllamaProxyHandler(ProxyConfig config, Tracer tracer, StallDetector stallDetector, ProxyMetrics metrics) {
+        this.serviceType = config.serviceType;
+        this.tracer = tracer;
+        this.stallDetector = stallDetector;
+        this.metrics = metrics;
+        this.contextWindowTokens = config.contextWindowTokens;
+        this.trimPromptToContext = config.trimPromptToContext;
+
+        if (this.serviceType == ServiceType.OPEN_WEBUI) {
+            this.providerClient = new OllamaWebUIClient(config.apiKey, config.baseUrl);
+        } else {
+            this.providerClient = new OpenAICompatibleClient(config.apiKey, config.baseUrl);
+        }
+        this.modelMetadata = new ModelMetadataCache(providerClient, config.modelCacheTtlSeconds);
+    }
+
+    public ModelMetadataCache getModelMetadata() {
+        return modelMetadata;
+    }
+
+    public ProviderClient getProviderClient() {
+        return providerClient;
+    }
+
+    // Handler for GET /api/tags
+    public void handleGetModels(Context ctx) throws Exception {
+        List<Map<String, Object>> ollamaModels = new ArrayList<>();
+
+        for (ModelMetadataCache.ModelInfo model : modelMetadata.models()) {
+            Map<String, Object> ollamaModel = new LinkedHashMap<>();
+            ollamaModel.put("name", model.id);
+            ollamaModel.put("model", model.id);
+            ollamaModel.put("modified_at", modifiedAt(model));
+            ollamaModel.put("size", model.size);
+            ollamaModel.put("digest", model.digest);
+            ollamaModel.put("details", details());
+            ollamaModels.add(ollamaModel);
+        }
+
+        ctx.json(Map.of("models", ollamaModels));
+    }
+
+    // Handler for POST /api/show
+    public void handleShowModel(Context ctx) throws Exception {
+        JsonNode request = ctx.body().isBlank() ? mapper.createObjectNode() : mapper.readTree(ctx.body());
+        String name = request.hasNonNull("model") ? request.get("model").asText() : request.path("name").asText();
+        // get() only returns null once the model list has loaded, so the model really is unknown.
+        ModelMetadataCache.ModelInfo model = modelMetadata.get(stripLatestTag(name));
+        if (model == null) {
+            ctx.status(404).json(Map.of("error", "model '" + name + "' not found"));
+            return;
+        }
+
+        // Keys follow Ollama's "<architecture>.<field>" convention with "proxy" as the architecture.
+        Map<String, Object> modelInfo = new LinkedHashMap<>();
+        modelInfo.put("general.architecture", "proxy");
+        modelInfo.put("general.basename", model.id);
+        Integer contextLength = contextWindowTokens > 0 ? Integer.valueOf(contextWindowTokens) : model.contextLength;
+        if (contextLength != null) {
+            modelInfo.put("proxy.context_length", contextLength);
+        }
+        if (model.maxOutputTokens != null) {
+            modelInfo.put("proxy.max_output_tokens", model.maxOutputTokens);
+        }
+        if (model.promptPrice != null) {
+            modelInfo.put("proxy.pricing.prompt", model.promptPrice);
+        }
+        if (model.completionPrice != null) {
+            modelInfo.put("proxy.pricing.completion", model.completionPrice);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("license", "");
+        response.put("modified_at", modifiedAt(model));
+        response.put("details", details());
+        response.put("model_info", modelInfo);
+        response.put("capabilities", model.capabilities);
+        ctx.json(response);
+    }
+
+    private static Map<String, Object> details() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("format", "remote");
+        details.put("family", "proxy");
+        details.put("families", List.of("proxy"));
+        return details;
+    }
+
+    private static String modifiedAt(ModelMetadataCache.ModelInfo model) {
+        return DateTimeFormatter.ISO_INSTANT.format(model.created != null ? Instant.ofEpochSecond(model.created) : Instant.now());
+    }
+
+    // Ollama clients may append the default tag to names we listed without one.
+    private static String stripLatestTag(String name) {
+        return name.endsWith(":latest") ? name.substring(0, name.length() - ":latest".length()) : name;
+    }
+
+    // Handler for POST /api/chat
+    public void handleChat(Context ctx) throws Exception {
+        ObjectNode request = mapper.readValue(ctx.body(), ObjectNode.class);
+        boolean stream = request.path("stream").asBoolean(true);
+
+        if (!fitsContextWindow(request)) {
+            ctx.status(400).json(Map.of("error", "prompt exceeds the context window of "
+                    + request.path("model").asText()));
+            return;
+        }
+
+        if (request.get("messages") instanceof ArrayNode messages) {
+            ToolCallAssembler.toOpenAiMessages(messages);
+        }
+
+        RequestTrace trace = tracer.begin(request.path("model").asText(),
+                ctx.attribute(ProxyRuntime.TENANT_ATTRIBUTE), request);
+        ProxyMetrics.ModelCounters counters = metrics.forModel(statsKey(request.path("model").asText()));
+        counters.requests.increment();
+        if (stream) {
+            handleChatStream(ctx, request, trace, counters);
+        } else {
+            handleChatNonStream(ctx, request, trace, counters);
+        }
+    }
+
+    /**
+     * Checks the prompt against the context window, trimming the oldest turns first if that is
+     * enabled. The configured window wins; otherwise the model's cached metadata is used, but
+     * only for trimming, since the local token count is an estimate and upstream has the final say.
+     */
+    private boolean fitsContextWindow(ObjectNode request) {
+        if (!(request.get("messages") instanceof ArrayNode messages)) {
+            return true;
+        }
+        ModelMetadataCache.ModelInfo model = modelMetadata.peek(request.path("model").asText());
+        boolean configuredWindow = contextWindowTokens > 0;
+        int window = configuredWindow ? contextWindowTokens
+                : model != null && model.contextLength != null ? model.contextLength : 0;
+        if (window <= 0) {
+            return true;
+        }
+        // Tool schemas are part of the prompt upstream, and are often the largest part of it.
+        int toolTokens = TokenCounter.countTools(request.get("tools"));
+        if (trimPromptToContext) {
+            int budget = window - replyReserve(request, model, window) - toolTokens;
+            int trimmed = PromptTrimmer.trim(messages, budget) + toolTokens;
+            // A window from metadata only guides trimming; upstream makes the final call.
+            return !configuredWindow || trimmed <= window;
+        }
+        return !configuredWindow || TokenCounter.countMessages(messages) + toolTokens <= window;
+    }
+
+    // Room left for the reply: what the client asked for, else the model's output limit,
+    // else a share of the window. Without it, a prompt trimmed to fill the window leaves none.
+    private static int replyReserve(ObjectNode request, ModelMetadataCache.ModelInfo model, int window) {
+        int numPredict = request.path("options").path("num_predict").asInt(0);
+        if (numPredict > 0) {
+            return Math.min(numPredict, window);
+        }
+        if (model != null && model.maxOutputTokens != null) {
+            // Some providers report the full context as the output limit; keep room for a prompt.
+            return Math.min(model.maxOutputTokens, window / 2);
+        }
+        return window / DEFAULT_REPLY_RESERVE_DIVISOR;
+    }
+
+    private void handleChatNonStream(Context ctx, ObjectNode request, RequestTrace trace,
+                                     ProxyMetrics.ModelCounters counters) throws Exception {
+        String statsKey = statsKey(request.path("model").asText());
+        String providerResponse;
+        try {
+            long startNanos = System.nanoTime();
+            providerResponse = providerClient.chat(request, stallDetector.responseDeadlineMillis(statsKey));
+            stallDetector.recordResponse(statsKey, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (Exception e) {
+            trace.error(e);
+            counters.errors.increment();
+            throw e;
+        }
+        JsonNode responseJson = mapper.readTree(providerResponse);
+
+        // Translate the response back to Ollama format
+        ObjectNode ollamaResponse = mapper.createObjectNode();
+        JsonNode message;
+        String finishReason = "stop";
+
+        if (serviceType == ServiceType.OPENAI_COMPATIBLE) {
+            JsonNode choice = responseJson.path("choices").path(0);
+            message = choice.path("message");
+            finishReason = choice.path("finish_reason").asText("stop");
+        } else { // OpenWebUI/Ollama format
+            message = responseJson.path("message");
+            if(responseJson.has("finish_reason")) {
+                finishReason = responseJson.path("finish_reason").asText("stop");
+            }
+        }
+        String content = message.path("content").asText();
+        String thinking = reasoningOf(message);
+
+        trace.chunk(content);
+        trace.end(finishReason);
+        counters.outputTokens.add(TokenCounter.count(content) + TokenCounter.count(thinking));
+
+        ObjectNode messageNode = mapper.createObjectNode();
+        messageNode.put("role", "assistant");
+        messageNode.put("content", content);
+        if (!thinking.isEmpty()) {
+            messageNode.put("thinking", thinking);
+        }
+        if (message.path("tool_calls").size() > 0) {
+            messageNode.set("tool_calls", ToolCallAssembler.toOllamaToolCalls(mapper, message.get("tool_calls")));
+        }
+
+        ollamaResponse.put("model", request.get("model").asText());
+        ollamaResponse.put("created_at", DateTimeFormatter.ISO_INSTANT.format(Instant.now()));
+        ollamaResponse.set("message", messageNode);
+        ollamaResponse.put("done", true);
+        ollamaResponse.put("finish_reason", finishReason);
+
+        ctx.json(ollamaResponse);
+    }
+
+    private void handleChatStream(Context ctx, ObjectNode request, RequestTrace trace,
+                                  ProxyMetrics.ModelCounters counters) throws Exception {
+        long startNanos = System.nanoTime();
+        ctx.header("Content-Type", "application/x-ndjson");
+        // It's good practice to get the output stream once
+        ctx.res().setBufferSize(0);
+        var outputStream = ctx.res().getOutputStream();
+
+
+        // Tool-call arguments arrive as fragments and are only forwarded once complete,
+        // since Ollama clients expect whole tool calls.
+        ToolCallAssembler toolCalls = ToolCallAssembler.acquire();
+        String[] finishReason = {"stop"};
+        boolean[] sent = {false};
+
+        metrics.streamStarted();
+        try {
+            // The main streaming logic
+            streamFromProvider(request, ctx, sent, toolCalls, chunkString -> {
+                try {
+                    if (chunkString.isBlank()) return;
+
+                    JsonNode chunkJson = mapper.readTree(chunkString);
+                    ObjectNode ollamaChunk = mapper.createObjectNode();
+
+                    JsonNode choice = chunkJson.path("choices").path(0);
+                    JsonNode delta = choice.path("delta");
+                    String content = delta.path("content").asText("");
+                    String thinking = reasoningOf(delta);
+                    trace.chunk(content);
+
+                    boolean toolCallDelta = delta.path("tool_calls").size() > 0;
+                    if (toolCallDelta) {
+                        toolCalls.append(delta.get("tool_calls"));
+                    }
+                    ArrayNode completedToolCalls = null;
+                    if (choice.hasNonNull("finish_reason")) {
+                        finishReason[0] = choice.get("finish_reason").asText();
+                        if (!toolCalls.isEmpty()) {
+                            completedToolCalls = toolCalls.drain(mapper);
+                        }
+                    }
+                    // A bare argument fragment has nothing to show the client yet.
+                    if (toolCallDelta && completedToolCalls == null && content.isEmpty() && thinking.isEmpty()) {
+                        return;
+                    }
+
+                    ObjectNode messageNode = mapper.createObjectNode();
+                    messageNode.put("role", "assistant");
+                    messageNode.put("content", content);
+                    if (!thinking.isEmpty()) {
+                        messageNode.put("thinking", thinking);
+                    }
+                    if (completedToolCalls != null) {
+                        messageNode.set("tool_calls", completedToolCalls);
+                    }
+
+                    ollamaChunk.put("model", request.get("model").asText());
+                    ollamaChunk.put("created_at", DateTimeFormatter.ISO_INSTANT.format(Instant.now()));
+                    ollamaChunk.set("message", messageNode);
+                    ollamaChunk.put("done", false);
+
+                    // Write the chunk. This will throw an IOException if the client has disconnected.
+                    String ndjsonLine = ollamaChunk.toString() + "\n";
+                    outputStream.write(ndjsonLine.getBytes(StandardCharsets.UTF_8));
+                    outputStream.flush();
+                    if (!sent[0]) {
+                        // Time to first token as the client sees it, including any stall retry.
+                        counters.recordTtft((System.nanoTime() - startNanos) / 1_000_000);
+                    }
+                    sent[0] = true;
+                    counters.outputTokens.add(TokenCounter.count(content) + TokenCounter.count(thinking));
+
+                } catch (java.io.IOException e) {
+                    // This is the correct way to detect a closed connection.
+                    // We re-throw a custom exception to signal the outer stream to stop.
+                    throw new ClientDisconnectedException(e);
+                } catch (Exception e) {
+                    // Record other unexpected errors without blocking the stream on log I/O
+                    trace.error(e);
+                }
+            });
+
+            // Send the final "done" message after the stream concludes successfully.
+            ObjectNode finalMessage = mapper.createObjectNode().put("role", "assistant").put("content", "");
+            if (!toolCalls.isEmpty()) {
+                // Upstream ended without a finish_reason; flush whatever was assembled.
+                finalMessage.set("tool_calls", toolCalls.drain(mapper));
+            }
+            ObjectNode finalChunk = mapper.createObjectNode();
+            finalChunk.put("model", request.get("model").asText());
+            finalChunk.put("created_at", DateTimeFormatter.ISO_INSTANT.format(Instant.now()));
+            finalChunk.set("message", finalMessage);
+            finalChunk.put("done", true);
+            finalChunk.put("finish_reason", finishReason[0]);
+
+            String finalNdjsonLine = finalChunk.toString() + "\n";
+            outputStream.write(finalNdjsonLine.getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            trace.end(finishReason[0]);
+
+        } catch (Exception e) {
+            if (isClientDisconnect(e)) {
+                // This is expected. The client closed the connection. Log it quietly and stop.
+                trace.end("client_disconnected");
+                LOG.fine("Client disconnected during stream; halting gracefully");
+                return;
+            }
+            // Handle other upstream errors
+            trace.error(e);
+            counters.errors.increment();
+            LOG.log(Level.WARNING, "Upstream error during stream for " + request.path("model").asText(), e);
+        } finally {
+            metrics.streamFinished();
+            // It's good practice to ensure the stream is closed.
+            // Javalin typically handles this, but being explicit can't hurt.
+            try {
+                outputStream.close();
+            } catch (java.io.IOException e) {
+                // Ignore, probably already closed.
+            }
+        }
+    }
+
+    /**
+     * Runs the upstream stream under a {@link StreamGuard}. If it stalls before anything was
+     * sent to the client, the partial state is discarded and the request is retried on a
+     * fresh connection; once output has started, a stall simply aborts the stream.
+     */
+    private void streamFromProvider(ObjectNode request, Context ctx, boolean[] sent,
+                                    ToolCallAssembler toolCalls, StreamHandler handler) throws Exception {
+        String model = request.path("model").asText();
+        for (int attempt = 0; ; attempt++) {
+            try (StreamGuard guard = stallDetector.watch(statsKey(model), attempt > 0)) {
+                try {
+                    providerClient.chatStream(request, ctx, guard, chunkString -> {
+                        guard.chunk();
+                        try {
+                            handler.handle(chunkString);
+                        } finally {
+                            guard.chunkWritten();
+                        }
+                    });
+                    return;
+                } catch (Exception e) {
+                    if (!guard.isStalled()) {
+                        throw e;
+                    }
+                    if (sent[0] || attempt >= MAX_STALL_RETRIES) {
+                        throw new java.io.IOException("Upstream stream for " + model + " stalled", e);
+                    }
+                    LOG.info("Upstream stream for " + model + " stalled before the first token; retrying");
+                    toolCalls.reset();
+                }
+            }
+        }
+    }
+
+    /**
+     * The key a model's metrics and learned latencies are kept under. The model name comes
+     * straight from the client, so only names the provider lists get an entry of their own;
+     * everything else shares {@link #UNLISTED_MODEL} and the maps stay bounded.
+     */
+    private String statsKey(String model) {
+        String listed = stripLatestTag(model);
+        return modelMetadata.peek(listed) != null ? listed : UNLISTED_MODEL;
+    }
+
+    /**
+     * Reasoning text of a message or delta. OpenRouter sends it as {@code reasoning},
+     * DeepSeek and vLLM-style servers as {@code reasoning_content}.
+     */
+    private static String reasoningOf(JsonNode message) {
+        JsonNode reasoning = message.get("reasoning");
+        if (reasoning == null || !reasoning.isTextual()) {
+            reasoning = message.get("reasoning_content");
+        }
+        return reasoning != null && reasoning.isTextual() ? reasoning.asText() : "";
+    }
+
+    /**
+     * Whether a stream failure started with the client going away. Provider clients may wrap
+     * the handler's exception, so the whole cause chain is checked.
+     */
+    private static boolean isClientDisconnect(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof ClientDisconnectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A custom exception to signal that the client has disconnected.
+    private static class ClientDisconnectedException extends RuntimeException {
+        public ClientDisconnectedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
\ No newline at end of file
@@ -3,7 +3,6 @@ package com.hdev.ollamaproxy.server;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.intellij.openapi.diagnostic.Logger;
 import io.javalin.http.Context;
 import okhttp3.*;
 
@@ -13,9 +12,9 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 public class OllamaWebUIClient implements ProviderClient {
-    private static final Logger LOG = Logger.getInstance(ProxyServer.class);
     private final OkHttpClient httpClient;
     private final String baseUrl;
     private final ObjectMapper mapper = new ObjectMapper();
@@ -24,9 +23,10 @@ public class OllamaWebUIClient implements ProviderClient {
         // Ensure the base URL always ends with a slash for consistent path concatenation
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
         this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .readTimeout(Duration.ofMinutes(5))
-                .writeTimeout(Duration.ofMinutes(5)) // Also good to set a write timeout
+                // Streams are cut much earlier by the StallDetector; these are only backstops.
+                .connectTimeout(Duration.ofMillis(StallDetector.CONNECT_TIMEOUT_MILLIS))
+                .readTimeout(Duration.ofMillis(StallDetector.MAX_READ_TIMEOUT_MILLIS))
+                .writeTimeout(Duration.ofMillis(StallDetector.MAX_READ_TIMEOUT_MILLIS))
                 .addInterceptor(chain -> {
                     Request original = chain.request();
                     Request.Builder builder = original.newBuilder()
@@ -37,6 +37,16 @@ public class OllamaWebUIClient implements ProviderClient {
                 .build();
     }
 
+    @Override
+    public int getConnectionCount() {
+        return httpClient.connectionPool().connectionCount();
+    }
+
+    @Override
+    public int getIdleConnectionCount() {
+        return httpClient.connectionPool().idleConnectionCount();
+    }
+
     @Override
     public String getModels() throws Exception {
         // This method was already correct.
@@ -50,14 +60,17 @@ public class OllamaWebUIClient implements ProviderClient {
     }
 
     @Override
-    public String chat(ObjectNode request) throws Exception {
+    public String chat(ObjectNode request, long timeoutMillis) throws Exception {
         // ✅ Do NOT force streaming
         request.put("stream", false);
 
         RequestBody body = RequestBody.create(request.toString(), MediaType.get("application/json"));
         Request apiRequest = new Request.Builder().url(baseUrl + "api/chat/completions").post(body).build();
 
-        try (Response response = httpClient.newCall(apiRequest).execute()) {
+        Call call = httpClient.newCall(apiRequest);
+        // Bounds the whole call, unlike the client's per-read timeout.
+        call.timeout().timeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        try (Response response = call.execute()) {
             if (!response.isSuccessful() || response.body() == null) {
                 throw new IOException("Upstream server error: " + response.code() + " " + response.message());
             }
@@ -71,8 +84,14 @@ public class OllamaWebUIClient implements ProviderClient {
 
             // Check if it's already a "message" object or a "choices" array
             if (json.has("choices")) {
-                String content = json.get("choices").get(0).get("message").get("content").asText();
-                message.put("content", content);
+                JsonNode choiceMessage = json.get("choices").get(0).get("message");
+                message.put("content", choiceMessage.path("content").asText());
+                // Tool calls and reasoning are translated to Ollama's format by the handler.
+                for (String field : new String[]{"tool_calls", "reasoning", "reasoning_content"}) {
+                    if (choiceMessage.hasNonNull(field)) {
+                        message.set(field, choiceMessage.get(field));
+                    }
+                }
             } else if (json.has("message")) {
                 message.set("content", json.get("message").get("content"));
             } else {
@@ -91,21 +110,29 @@ public class OllamaWebUIClient implements ProviderClient {
     }
 
     @Override
-    public void chatStream(ObjectNode request, Context ctx, StreamHandler handler) throws Exception {
+    public void chatStream(ObjectNode request, Context ctx, StreamGuard guard, StreamHandler handler) throws Exception {
         // CRITICAL FIX: Explicitly set stream to true for the upstream request.
         request.put("stream", true);
         request.remove("keep_alive");
         request.remove("options");
 
         RequestBody body = RequestBody.create(request.toString(), MediaType.get("application/json"));
-        LOG.info("Request: " + request.toString());
         Request apiRequest = new Request.Builder()
                 .url(baseUrl + "api/chat/completions")
                 .header("Accept", "application/x-ndjson")
                 .post(body)
                 .build();
 
-        try (Response response = httpClient.newCall(apiRequest).execute()) {
+        // The shared pool may hand a retry the very connection that stalled (or multiplex it
+        // onto the same HTTP/2 connection), so a retry gets a client with its own pool.
+        OkHttpClient target = guard.isRetry()
+                ? httpClient.newBuilder().connectionPool(new ConnectionPool()).build()
+                : httpClient;
+        Call call = target.newCall(apiRequest);
+        // Cancelling closes the stalled connection itself, so it never goes back to the shared pool.
+        guard.onCancel(call::cancel);
+
+        try (Response response = call.execute()) {
             if (!response.isSuccessful() || response.body() == null) {
                 // Read the body for a better error message if possible
                 String errorBody = response.body() != null ? response.body().string() : "No response body";
@@ -122,18 +149,14 @@ public class OllamaWebUIClient implements ProviderClient {
                         String jsonStr = line.substring(6).trim();
                         if ("[DONE]".equals(jsonStr)) break;
 
-                        LOG.info("Response: " + jsonStr);
-
-                        try {
-                            handler.handle(jsonStr);
-                        } catch (Exception e) {
-                            LOG.error("Error handling stream chunk: " + jsonStr);
-                            e.printStackTrace();
-                            throw e;
-                        }
+                        handler.handle(jsonStr);
                     }
                 }
             }
+        } finally {
+            if (target != httpClient) {
+                target.connectionPool().evictAll();
+            }
         }
     }
-}
\ No newline at end of file
+}
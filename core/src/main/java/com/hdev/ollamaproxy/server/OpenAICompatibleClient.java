@@ -0,0 +1,231 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.openai.client.OpenAIClient;
+import com.openai.client.okhttp.OpenAIOkHttpClient;
+import com.openai.core.JsonValue;
+import com.openai.core.RequestOptions;
+import com.openai.core.Timeout;
+import com.openai.core.http.StreamResponse;
+import com.openai.models.FunctionDefinition;
+import com.openai.models.FunctionParameters;
+import com.openai.models.chat.completions.ChatCompletionStreamOptions;
+import com.openai.models.models.Model;
+import com.openai.models.chat.completions.ChatCompletion;
+import com.openai.models.chat.completions.ChatCompletionAssistantMessageParam;
+import com.openai.models.chat.completions.ChatCompletionChunk;
+import com.openai.models.chat.completions.ChatCompletionCreateParams;
+import com.openai.models.chat.completions.ChatCompletionMessageToolCall;
+import com.openai.models.chat.completions.ChatCompletionTool;
+import com.openai.models.chat.completions.ChatCompletionToolMessageParam;
+import io.javalin.http.Context;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Drop‑in replacement that targets the official
+ * {@code com.openai:openai-java:2.12.4} SDK instead of the now‑deprecated
+ * Theo Kanning retrofit client.
+ */
+public class OpenAICompatibleClient implements ProviderClient {
+    private static final Logger LOG = Logger.getLogger(OpenAICompatibleClient.class.getName());
+
+    // Past the guard's deadlines, so the stall detector marks a stream stalled before the read times out.
+    private static final long READ_TIMEOUT_SLACK_MILLIS = 1_000;
+
+    private final String apiKey;
+    private final String baseUrl;
+    private final OpenAIClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public OpenAICompatibleClient(String apiKey, String baseUrl) {
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        this.client = buildClient(apiKey, baseUrl);
+    }
+
+    private static OpenAIClient buildClient(String apiKey, String baseUrl) {
+        // Build an OkHttp‑backed client. Streams are cut much earlier by the StallDetector;
+        // these timeouts are only backstops, with a generous whole-request cap for long streams.
+        OpenAIOkHttpClient.Builder builder = OpenAIOkHttpClient.builder()
+                .apiKey(apiKey)
+                // The SDK retries twice by default, on the same pool; the StallDetector owns retries.
+                .maxRetries(0)
+                .timeout(Timeout.builder()
+                        .connect(Duration.ofMillis(StallDetector.CONNECT_TIMEOUT_MILLIS))
+                        .read(Duration.ofMillis(StallDetector.MAX_READ_TIMEOUT_MILLIS))
+                        .write(Duration.ofMillis(StallDetector.MAX_READ_TIMEOUT_MILLIS))
+                        .request(Duration.ofMillis(StallDetector.MAX_STREAM_DURATION_MILLIS))
+                        .build());
+
+        //if openrouter add ranking headers
+        if (baseUrl.contains("openrouter.ai")) {
+            builder.putHeader("HTTP-Referer", "https://henrikdev.xyz")
+                    .putHeader("X-Title", "JetBrains AI Proxy Plugin");
+        }
+
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            builder.baseUrl(baseUrl); // e.g. Azure/Ollama/OpenRouter endpoints
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String getModels() throws Exception {
+        // ask the SDK for the raw HTTP response, skip POJO mapping
+        var resp = client.models()
+                .withRawResponse()
+                .list();          // returns HttpResponse<String>
+        try (InputStream in = resp.body()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+
+    @Override
+    public String chat(ObjectNode request, long timeoutMillis) throws Exception {
+        ChatCompletionCreateParams params = buildParams(request);
+        RequestOptions options = RequestOptions.builder()
+                .timeout(Timeout.builder()
+                        .connect(Duration.ofMillis(StallDetector.CONNECT_TIMEOUT_MILLIS))
+                        .read(Duration.ofMillis(timeoutMillis))
+                        .write(Duration.ofMillis(timeoutMillis))
+                        .request(Duration.ofMillis(timeoutMillis))
+                        .build())
+                .build();
+        ChatCompletion result = client.chat().completions().create(params, options);
+        return mapper.writeValueAsString(result);
+    }
+
+    @Override
+    public void chatStream(ObjectNode request, Context ctx, StreamGuard guard, StreamHandler handler) {
+        ChatCompletionCreateParams params = buildParams(request);
+
+        // The stream object only exists once headers arrive, and closing it from the detector
+        // thread does not reliably unblock a pending read. What actually aborts a stalled call is
+        // this per-request read timeout, set just past the guard's deadlines.
+        RequestOptions options = RequestOptions.builder()
+                .timeout(Timeout.builder()
+                        .connect(Duration.ofMillis(StallDetector.CONNECT_TIMEOUT_MILLIS))
+                        .read(Duration.ofMillis(Math.max(guard.getFirstChunkDeadlineMillis(),
+                                guard.getStallDeadlineMillis()) + READ_TIMEOUT_SLACK_MILLIS))
+                        .write(Duration.ofMillis(StallDetector.MAX_READ_TIMEOUT_MILLIS))
+                        .request(Duration.ofMillis(StallDetector.MAX_STREAM_DURATION_MILLIS))
+                        .build())
+                .build();
+
+        // The shared pool may hand a retry the very connection that stalled (or multiplex it
+        // onto the same HTTP/2 connection), so a retry gets a throwaway client with its own pool.
+        OpenAIClient target = guard.isRetry() ? buildClient(apiKey, baseUrl) : client;
+
+        // The SDK returns a StreamResponse we can iterate over.
+        try (StreamResponse<ChatCompletionChunk> stream =
+                     target.chat().completions().createStreaming(params, options)) {
+            // Best effort only, see the read timeout above.
+            guard.onCancel(stream::close);
+
+            stream.stream().forEach(chunk -> {
+                try {
+                    handler.handle(mapper.writeValueAsString(chunk));
+                } catch (RuntimeException e) {
+                    // The handler's own signals, such as a client disconnect, must reach it intact.
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException("Error serializing chunk", e);
+                }
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Error while streaming ChatCompletion", e);
+        } finally {
+            if (target != client) {
+                target.close();
+            }
+        }
+    }
+
+    /**
+     * Convert the inbound proxy JSON into {@link ChatCompletionCreateParams}.
+     * Maps model, messages (including tool calls and tool results) and tool definitions.
+     * Tool-call history has already been normalized to OpenAI form by the handler.
+     */
+    private ChatCompletionCreateParams buildParams(JsonNode request) {
+        ChatCompletionCreateParams.Builder builder = ChatCompletionCreateParams.builder()
+                .model(request.get("model").asText());
+
+        // Map each OpenAI‑style message (role, content)
+        for (JsonNode node : request.get("messages")) {
+            String role = node.get("role").asText();
+            String content = node.path("content").asText("");
+            switch (role) {
+                case "system" -> builder.addSystemMessage(content);
+                case "assistant" -> {
+                    if (node.path("tool_calls").size() > 0) {
+                        builder.addMessage(buildAssistantToolCallMessage(node, content));
+                    } else {
+                        builder.addAssistantMessage(content);
+                    }
+                }
+                case "tool" -> builder.addMessage(ChatCompletionToolMessageParam.builder()
+                        .toolCallId(node.path("tool_call_id").asText(""))
+                        .content(content)
+                        .build());
+                case "user" -> builder.addUserMessage(content);
+                default -> builder.addUserMessage(content); // fallback
+            }
+        }
+
+        for (JsonNode tool : request.path("tools")) {
+            JsonNode function = tool.path("function");
+            FunctionDefinition.Builder definition = FunctionDefinition.builder()
+                    .name(function.path("name").asText());
+            if (function.hasNonNull("description")) {
+                definition.description(function.get("description").asText());
+            }
+            if (function.path("parameters").isObject()) {
+                definition.parameters(FunctionParameters.builder()
+                        .additionalProperties(toJsonValues(function.get("parameters")))
+                        .build());
+            }
+            builder.addTool(ChatCompletionTool.builder().function(definition.build()).build());
+        }
+
+        return builder.build();
+    }
+
+    private ChatCompletionAssistantMessageParam buildAssistantToolCallMessage(JsonNode node, String content) {
+        ChatCompletionAssistantMessageParam.Builder assistant = ChatCompletionAssistantMessageParam.builder();
+        if (!content.isEmpty()) {
+            assistant.content(content);
+        }
+        for (JsonNode call : node.get("tool_calls")) {
+            JsonNode function = call.path("function");
+            assistant.addToolCall(ChatCompletionMessageToolCall.builder()
+                    .id(call.path("id").asText())
+                    .function(ChatCompletionMessageToolCall.Function.builder()
+                            .name(function.path("name").asText())
+                            .arguments(function.path("arguments").asText("{}"))
+                            .build())
+                    .build());
+        }
+        return assistant.build();
+    }
+
+    // JSON Schema objects are passed through verbatim as untyped SDK values.
+    private Map<String, JsonValue> toJsonValues(JsonNode object) {
+        Map<String, JsonValue> values = new LinkedHashMap<>();
+        object.fields().forEachRemaining(field ->
+                values.put(field.getKey(), JsonValue.from(mapper.convertValue(field.getValue(), Object.class))));
+        return values;
+    }
+}
@@ -0,0 +1,80 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+/**
+ * Drops the oldest conversation turns from an {@code /api/chat} message list until
+ * it fits a token budget. System messages and the latest message are always kept,
+ * since the request is meaningless without them.
+ * <p>
+ * An assistant message with {@code tool_calls} and the {@code tool} results that follow
+ * it are dropped or kept together, because upstreams reject a tool result whose call is
+ * missing. After anything was dropped, the kept history also never starts with an
+ * assistant or tool turn.
+ */
+public final class PromptTrimmer {
+
+    private PromptTrimmer() {
+    }
+
+    /**
+     * Trims {@code messages} in place.
+     *
+     * @param messages The request's message array.
+     * @param budget   The maximum number of prompt tokens allowed.
+     * @return The token count after trimming, which can still exceed the budget
+     *         if the kept messages alone are too large.
+     */
+    public static int trim(ArrayNode messages, int budget) {
+        int size = messages.size();
+        int[] costs = new int[size];
+        int total = TokenCounter.TOKENS_REPLY_PRIMING;
+        for (int i = 0; i < size; i++) {
+            costs[i] = TokenCounter.countMessage(messages.get(i));
+            total += costs[i];
+        }
+
+        // Walk forward from the oldest turn, marking droppable units until we fit.
+        boolean[] drop = new boolean[size];
+        boolean dropped = false;
+        for (int start = 0, end; start < size; start = end) {
+            end = unitEnd(messages, start);
+            if (end >= size) {
+                break; // the unit holding the latest message is always kept
+            }
+            String role = messages.get(start).path("role").asText();
+            if ("system".equals(role)) {
+                continue;
+            }
+            boolean orphanedReply = dropped && !"user".equals(role);
+            if (total <= budget && !orphanedReply) {
+                break;
+            }
+            for (int i = start; i < end; i++) {
+                drop[i] = true;
+                total -= costs[i];
+            }
+            dropped = true;
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            if (drop[i]) {
+                messages.remove(i);
+            }
+        }
+        return total;
+    }
+
+    // Exclusive end of the unit starting at start: an assistant tool call with its results, or one message.
+    private static int unitEnd(ArrayNode messages, int start) {
+        JsonNode message = messages.get(start);
+        int end = start + 1;
+        if ("assistant".equals(message.path("role").asText()) && message.path("tool_calls").size() > 0) {
+            while (end < messages.size() && "tool".equals(messages.get(end).path("role").asText())) {
+                end++;
+            }
+        }
+        return end;
+    }
+}
@@ -29,10 +29,11 @@ public interface ProviderClient {
     /**
      * Handles a non-streaming chat request.
      * @param request The original request from the client, as an ObjectNode.
+     * @param timeoutMillis How long the whole upstream call may take before it is abandoned.
      * @return A raw JSON string representing the complete response from the provider.
      * @throws Exception if the request fails.
      */
-    String chat(ObjectNode request) throws Exception;
+    String chat(ObjectNode request, long timeoutMillis) throws Exception;
 
     /**
      * Handles a streaming chat request.
@@ -40,8 +41,23 @@ public interface ProviderClient {
      * for each chunk received.
      * @param request The original request from the client, as an ObjectNode.
      * @param ctx The Javalin context, which can be useful for checking the client connection.
+     * @param guard The stall guard; implementations must register how to abort the upstream call.
      * @param handler The callback to be executed for each data chunk from the stream.
      * @throws Exception if the initial connection to the provider fails.
      */
-    void chatStream(ObjectNode request, Context ctx, StreamHandler handler) throws Exception;
+    void chatStream(ObjectNode request, Context ctx, StreamGuard guard, StreamHandler handler) throws Exception;
+
+    /**
+     * Number of open upstream connections in the client's pool, or -1 if the client does not expose it.
+     */
+    default int getConnectionCount() {
+        return -1;
+    }
+
+    /**
+     * Number of idle upstream connections in the client's pool, or -1 if the client does not expose it.
+     */
+    default int getIdleConnectionCount() {
+        return -1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.hdev.ollamaproxy.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live request counters, updated from the request threads with lock-free adders and read
+ * by monitors (such as the IDE tool window) at their own pace. All counters are cumulative;
+ * readers derive rates from the difference between two samples.
+ */
+public class ProxyMetrics {
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final Map<String, ModelCounters> models = new ConcurrentHashMap<>();
+
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    /**
+     * Per-model counters, keyed by model id, with models the provider does not list under
+     * {@link OllamaProxyHandler#UNLISTED_MODEL}. The map is live; iterate it, do not keep it.
+     */
+    public Map<String, ModelCounters> getModels() {
+        return models;
+    }
+
+    ModelCounters forModel(String model) {
+        return models.computeIfAbsent(model, m -> new ModelCounters());
+    }
+
+    void streamStarted() {
+        activeStreams.incrementAndGet();
+    }
+
+    void streamFinished() {
+        activeStreams.decrementAndGet();
+    }
+
+    public static final class ModelCounters {
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder outputTokens = new LongAdder();
+        final LongAdder ttftCount = new LongAdder();
+        final LongAdder ttftMillis = new LongAdder();
+
+        void recordTtft(long millis) {
+            ttftCount.increment();
+            ttftMillis.add(millis);
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /** Estimated with {@link TokenCounter}, so comparable across providers. */
+        public long getOutputTokens() {
+            return outputTokens.sum();
+        }
+
+        public long getTtftCount() {
+            return ttftCount.sum();
+        }
+
+        public long getTtftMillis() {
+            return ttftMillis.sum();
+        }
+    }
+}
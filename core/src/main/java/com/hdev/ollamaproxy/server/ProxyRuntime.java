@@ -0,0 +1,269 @@
+package com.hdev.ollamaproxy.server;
+
+import com.hdev.ollamaproxy.config.ProxyConfig;
+import com.hdev.ollamaproxy.trace.Tracer;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.ForbiddenResponse;
+import io.javalin.http.ServiceUnavailableResponse;
+import io.javalin.http.UnauthorizedResponse;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * The proxy server itself: the Javalin app, its routes and the handler/provider stack.
+ * It has no IntelliJ dependencies, so the same runtime backs both the plugin
+ * ({@code ProxyServer}) and the headless standalone launcher.
+ */
+public class ProxyRuntime {
+    private static final Logger LOG = Logger.getLogger(ProxyRuntime.class.getName());
+
+    /** Context attribute holding the tenant name of an authenticated request. */
+    public static final String TENANT_ATTRIBUTE = "ollamaProxy.tenant";
+    private static final String ADMITTED_ATTRIBUTE = "ollamaProxy.admitted";
+    private static final String TRACES_PATH = "/api/proxy/traces";
+    // Upper bound for how long an early request waits for the handler to be built.
+    private static final long HANDLER_READY_TIMEOUT_SECONDS = 30;
+
+    private final ProxyConfig config;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ProxyMetrics metrics = new ProxyMetrics();
+    private volatile boolean draining = false;
+    // Volatile so monitors can read them without waiting on start()/stop().
+    private volatile Javalin app;
+    private volatile Tracer tracer;
+    private volatile StallDetector stallDetector;
+    private volatile OllamaProxyHandler handler;
+    private volatile StartupTimings startupTimings;
+
+    public ProxyRuntime(ProxyConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Binds the port first and builds the provider client and handler in parallel, so the
+     * port is reachable as early as possible: requests that arrive in between are held until
+     * the handler is ready. Returns once requests are served; the first model list fetch
+     * continues in the background.
+     */
+    public synchronized void start() {
+        if (app != null) {
+            throw new IllegalStateException("Proxy runtime is already started");
+        }
+        StartupTimings timings = new StartupTimings();
+
+        Tracer tracer = new Tracer(config.traceSampleRate, config.traceIncludeContent,
+                config.traceDirectory != null ? Path.of(config.traceDirectory) : null);
+        StallDetector stallDetector = new StallDetector(config.stallMultiplier);
+        CompletableFuture<OllamaProxyHandler> handlerReady = CompletableFuture.supplyAsync(() -> {
+            long phaseStart = System.nanoTime();
+            OllamaProxyHandler handler = new OllamaProxyHandler(config, tracer, stallDetector, metrics);
+            timings.record(StartupTimings.HANDLER, phaseStart);
+            long fetchStart = System.nanoTime();
+            handler.getModelMetadata().prefetch()
+                    .whenComplete((models, e) -> timings.record(StartupTimings.MODELS, fetchStart));
+            return handler;
+        }, ProxyRuntime::runOnInitThread);
+
+        long serverStart = System.nanoTime();
+        Javalin app = Javalin.create();
+
+        app.before(this::admit);
+        app.after(this::release);
+
+        // Register handlers, emulating Ollama/OpenWebUI API
+        app.get("/", ctx -> ctx.result("Ollama is running"));
+        app.head("/", ctx -> ctx.status(200));
+        app.get("/api/tags", ctx -> awaitHandler(handlerReady).handleGetModels(ctx));
+        app.post("/api/show", ctx -> awaitHandler(handlerReady).handleShowModel(ctx));
+        app.post("/api/chat", ctx -> awaitHandler(handlerReady).handleChat(ctx));
+        app.get(TRACES_PATH, ctx -> handleGetTraces(ctx, tracer));
+
+        // Early requests are served as soon as the port is bound, so they must already be
+        // watched for stalls and traced from the writer's starting position.
+        tracer.start();
+        stallDetector.start();
+        try {
+            app.start(config.port);
+        } catch (RuntimeException e) {
+            tracer.stop();
+            stallDetector.stop();
+            handlerReady.thenAccept(handler -> handler.getModelMetadata().shutdown());
+            throw e;
+        }
+        timings.record(StartupTimings.SERVER, serverStart);
+
+        OllamaProxyHandler handler;
+        try {
+            handler = handlerReady.join();
+        } catch (CompletionException e) {
+            app.stop();
+            tracer.stop();
+            stallDetector.stop();
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        timings.record(StartupTimings.READY, timings.getStartedAtNanos());
+        LOG.info("Proxy runtime started: " + timings);
+
+        this.draining = false;
+        this.app = app;
+        this.tracer = tracer;
+        this.stallDetector = stallDetector;
+        this.handler = handler;
+        this.startupTimings = timings;
+    }
+
+    /**
+     * Stops accepting new requests, waits up to {@link ProxyConfig#shutdownGraceSeconds}
+     * for in-flight requests (including open streams) to finish, then closes the server.
+     */
+    public synchronized void stop() {
+        if (app == null) {
+            return;
+        }
+        draining = true;
+
+        long deadline = System.nanoTime() + config.shutdownGraceSeconds * 1_000_000_000L;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (inFlight.get() > 0) {
+            LOG.warning("Stopping proxy with " + inFlight.get() + " request(s) still in flight");
+        }
+
+        app.stop();
+        app = null;
+        tracer.stop();
+        tracer = null;
+        stallDetector.stop();
+        stallDetector = null;
+        handler.getModelMetadata().shutdown();
+        handler = null;
+    }
+
+    public int getInFlightRequests() {
+        return inFlight.get();
+    }
+
+    public int getPort() {
+        return config.port;
+    }
+
+    public ProxyMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** The running handler, or null once stopped. */
+    public OllamaProxyHandler getHandler() {
+        return handler;
+    }
+
+    /** Phase timings of the last start, or null if it has not been started. */
+    public StartupTimings getStartupTimings() {
+        return startupTimings;
+    }
+
+    /** Per-model latency histograms, or null once stopped. */
+    public LatencyTracker getLatencies() {
+        StallDetector stallDetector = this.stallDetector;
+        return stallDetector != null ? stallDetector.getLatencies() : null;
+    }
+
+    /** Busy and maximum Jetty request threads, or null once stopped. */
+    public int[] getServerThreadUsage() {
+        Javalin app = this.app;
+        if (app == null || !(app.jettyServer().server().getThreadPool() instanceof QueuedThreadPool pool)) {
+            return null;
+        }
+        return new int[]{pool.getBusyThreads(), pool.getMaxThreads()};
+    }
+
+    // Requests that arrive between binding the port and the handler being built wait here.
+    private static OllamaProxyHandler awaitHandler(CompletableFuture<OllamaProxyHandler> handlerReady)
+            throws InterruptedException {
+        try {
+            return handlerReady.get(HANDLER_READY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new ServiceUnavailableResponse("Proxy is not ready");
+        }
+    }
+
+    private static void runOnInitThread(Runnable task) {
+        Thread thread = new Thread(task, "ollama-proxy-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Traces can contain other tenants' prompts, so they are only served to the local machine,
+    // and on a multi-tenant proxy only with the admin key: a tenant's key is not enough.
+    private void handleGetTraces(Context ctx, Tracer tracer) throws UnknownHostException {
+        if (!InetAddress.getByName(ctx.req().getRemoteAddr()).isLoopbackAddress()) {
+            throw new ForbiddenResponse("Traces are only available from localhost");
+        }
+        if (!config.clientKeys.isEmpty() && !isAdmin(ctx)) {
+            throw new ForbiddenResponse("Traces require the proxy admin key");
+        }
+        int limit = Math.max(1, Math.min(ctx.queryParamAsClass("limit", Integer.class).getOrDefault(200), 4096));
+        ctx.json(Map.of("traces", tracer.getBuffer().recent(limit)));
+    }
+
+    private void admit(Context ctx) {
+        if (draining) {
+            throw new ServiceUnavailableResponse("Proxy is shutting down");
+        }
+        // The health check stays open so load balancers can probe without a key;
+        // the traces endpoint checks the admin key itself.
+        if (!config.clientKeys.isEmpty() && !"/".equals(ctx.path()) && !TRACES_PATH.equals(ctx.path())) {
+            String tenant = config.clientKeys.get(clientKey(ctx));
+            if (tenant == null) {
+                throw new UnauthorizedResponse("Missing or invalid proxy API key");
+            }
+            ctx.attribute(TENANT_ATTRIBUTE, tenant);
+        }
+        inFlight.incrementAndGet();
+        ctx.attribute(ADMITTED_ATTRIBUTE, true);
+    }
+
+    private void release(Context ctx) {
+        if (ctx.attribute(ADMITTED_ATTRIBUTE) != null) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private boolean isAdmin(Context ctx) {
+        String adminKey = config.adminKey;
+        String presented = ctx.header("X-Admin-Key");
+        if (adminKey == null || adminKey.isBlank() || presented == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(presented.trim().getBytes(StandardCharsets.UTF_8),
+                adminKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String clientKey(Context ctx) {
+        String authorization = ctx.header("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return authorization.substring(7).trim();
+        }
+        String apiKey = ctx.header("X-API-Key");
+        return apiKey != null ? apiKey.trim() : "";
+    }
+}
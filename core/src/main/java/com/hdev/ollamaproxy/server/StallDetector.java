@@ -0,0 +1,119 @@
+package com.hdev.ollamaproxy.server;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Aborts upstream streams that stop producing chunks. Deadlines are learned per model
+ * from the {@link LatencyTracker}: a stream must deliver its first chunk within
+ * {@code k × p99(TTFT)} and every later chunk within {@code k × p99(chunk gap)}, clamped
+ * to sane bounds. Non-streamed responses get a single timeout of {@code k × p99(response)}
+ * the same way. Until a model has enough samples, conservative defaults apply, so slow
+ * reasoning models are not cut off before we know how they behave.
+ */
+public class StallDetector {
+    private static final Logger LOG = Logger.getLogger(StallDetector.class.getName());
+
+    /** Connect timeout shared by all provider clients. */
+    public static final long CONNECT_TIMEOUT_MILLIS = 10_000;
+    /** Hard cap on any single upstream read; the adaptive deadlines are always below it. */
+    public static final long MAX_READ_TIMEOUT_MILLIS = 5 * 60_000;
+    /** Hard cap on a whole upstream call, long enough for lengthy streamed answers. */
+    public static final long MAX_STREAM_DURATION_MILLIS = 30 * 60_000;
+
+    private static final long MIN_SAMPLES = 20;
+    private static final long DEFAULT_FIRST_CHUNK_MILLIS = 120_000;
+    private static final long DEFAULT_STALL_MILLIS = 60_000;
+    private static final long DEFAULT_RESPONSE_MILLIS = 120_000;
+    private static final long MIN_FIRST_CHUNK_MILLIS = 15_000;
+    private static final long MIN_STALL_MILLIS = 10_000;
+    private static final long MIN_RESPONSE_MILLIS = 15_000;
+    private static final long CHECK_INTERVAL_MILLIS = 250;
+
+    private final double multiplier;
+    private final LatencyTracker latencies = new LatencyTracker();
+    private final Set<StreamGuard> active = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param multiplier The {@code k} applied to the p99 latencies.
+     */
+    public StallDetector(double multiplier) {
+        this.multiplier = multiplier;
+    }
+
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ollama-proxy-stall-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    public LatencyTracker getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Starts watching a new upstream stream for {@code model}. Close the guard when done.
+     *
+     * @param retry Whether this stream retries one that stalled.
+     */
+    public StreamGuard watch(String model, boolean retry) {
+        LatencyTracker.ModelLatency latency = latencies.forModel(model);
+        StreamGuard guard = new StreamGuard(this, latency, retry,
+                deadline(latency.ttft(), DEFAULT_FIRST_CHUNK_MILLIS, MIN_FIRST_CHUNK_MILLIS),
+                deadline(latency.chunkGap(), DEFAULT_STALL_MILLIS, MIN_STALL_MILLIS));
+        active.add(guard);
+        return guard;
+    }
+
+    /** Timeout for a whole non-streamed response from {@code model}. */
+    public long responseDeadlineMillis(String model) {
+        return deadline(latencies.forModel(model).response(), DEFAULT_RESPONSE_MILLIS, MIN_RESPONSE_MILLIS);
+    }
+
+    /** Records how long a non-streamed response from {@code model} took, for its future deadlines. */
+    public void recordResponse(String model, long millis) {
+        latencies.forModel(model).recordResponse(millis);
+    }
+
+    void release(StreamGuard guard) {
+        active.remove(guard);
+    }
+
+    private long deadline(LatencyTracker.Histogram histogram, long defaultMillis, long minMillis) {
+        if (histogram.count() < MIN_SAMPLES) {
+            return defaultMillis;
+        }
+        long learned = (long) (multiplier * histogram.percentile(0.99));
+        return Math.max(minMillis, Math.min(MAX_READ_TIMEOUT_MILLIS, learned));
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        for (StreamGuard guard : active) {
+            if (guard.isOverdue(now)) {
+                active.remove(guard);
+                try {
+                    guard.stall();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "Failed to abort stalled upstream stream", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.hdev.ollamaproxy.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long each phase of {@link ProxyRuntime#start()} took. Phases run on different
+ * threads and are recorded as they finish, so a phase that is still running (such as the
+ * first model list fetch) is simply absent.
+ */
+public class StartupTimings {
+
+    /** Creating Javalin/Jetty and binding the port. */
+    public static final String SERVER = "server";
+    /** Building the provider client and request handler, in parallel with {@link #SERVER}. */
+    public static final String HANDLER = "handler";
+    /** From the start call until requests are served. */
+    public static final String READY = "ready";
+    /** The first model metadata fetch, which continues in the background after {@link #READY}. */
+    public static final String MODELS = "models";
+
+    private final long startedAtNanos = System.nanoTime();
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+
+    /** Records a phase that began at {@code phaseStartNanos} and ends now. */
+    synchronized void record(String phase, long phaseStartNanos) {
+        phaseMillis.put(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStartNanos));
+    }
+
+    long getStartedAtNanos() {
+        return startedAtNanos;
+    }
+
+    /** Finished phases in the order they finished, in milliseconds. */
+    public synchronized Map<String, Long> getPhaseMillis() {
+        return new LinkedHashMap<>(phaseMillis);
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder text = new StringBuilder();
+        phaseMillis.forEach((phase, millis) -> {
+            if (text.length() > 0) text.append(", ");
+            text.append(phase).append(' ').append(millis).append(" ms");
+        });
+        return text.toString();
+    }
+}
@@ -0,0 +1,112 @@
+package com.hdev.ollamaproxy.server;
+
+/**
+ * Watches one upstream stream on behalf of the {@link StallDetector}. The provider
+ * registers how to abort its call with {@link #onCancel}; the handler reports every
+ * chunk with {@link #chunk} and {@link #chunkWritten}, so time spent writing to a slow
+ * client never counts as an upstream stall. If the stream goes quiet past its deadline, the cancel
+ * action runs on the detector thread. Where that action cannot interrupt a blocked read,
+ * the provider bounds the read with a timeout just past the guard's deadlines instead.
+ */
+public class StreamGuard implements AutoCloseable {
+
+    private final StallDetector detector;
+    private final LatencyTracker.ModelLatency latency;
+    private final boolean retry;
+    private final long startNanos = System.nanoTime();
+    private final long firstChunkDeadlineNanos;
+    private final long stallDeadlineNanos;
+
+    private volatile long lastChunkNanos = 0;
+    private volatile boolean stalled = false;
+    private volatile boolean writing = false;
+    private Runnable cancelAction;
+
+    StreamGuard(StallDetector detector, LatencyTracker.ModelLatency latency, boolean retry,
+                long firstChunkDeadlineMillis, long stallDeadlineMillis) {
+        this.detector = detector;
+        this.latency = latency;
+        this.retry = retry;
+        this.firstChunkDeadlineNanos = firstChunkDeadlineMillis * 1_000_000L;
+        this.stallDeadlineNanos = stallDeadlineMillis * 1_000_000L;
+    }
+
+    /** Registers the action that aborts the upstream call. Runs it at once if already stalled. */
+    public void onCancel(Runnable action) {
+        boolean runNow;
+        synchronized (this) {
+            cancelAction = action;
+            runNow = stalled;
+        }
+        if (runNow) {
+            action.run();
+        }
+    }
+
+    /** Records that a chunk arrived from upstream; the stall clock pauses until {@link #chunkWritten}. */
+    public void chunk() {
+        long now = System.nanoTime();
+        long last = lastChunkNanos;
+        if (last == 0) {
+            latency.recordTtft((now - startNanos) / 1_000_000);
+        } else {
+            latency.recordChunkGap((now - last) / 1_000_000);
+        }
+        writing = true;
+        lastChunkNanos = now;
+    }
+
+    /** Records that the chunk has been passed on to the client, restarting the stall clock. */
+    public void chunkWritten() {
+        lastChunkNanos = System.nanoTime();
+        writing = false;
+    }
+
+    public long getFirstChunkDeadlineMillis() {
+        return firstChunkDeadlineNanos / 1_000_000L;
+    }
+
+    public long getStallDeadlineMillis() {
+        return stallDeadlineNanos / 1_000_000L;
+    }
+
+    /**
+     * Whether this stream retries one that stalled. Providers must not send it over a
+     * pooled connection, which may be the dead one.
+     */
+    public boolean isRetry() {
+        return retry;
+    }
+
+    /** Whether this stream was aborted by the stall detector. */
+    public boolean isStalled() {
+        return stalled;
+    }
+
+    boolean isOverdue(long now) {
+        if (writing) {
+            return false;
+        }
+        long last = lastChunkNanos;
+        return last == 0
+                ? now - startNanos > firstChunkDeadlineNanos
+                : now - last > stallDeadlineNanos;
+    }
+
+    void stall() {
+        Runnable action;
+        synchronized (this) {
+            if (stalled) return;
+            stalled = true;
+            action = cancelAction;
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    @Override
+    public void close() {
+        detector.release(this);
+    }
+}
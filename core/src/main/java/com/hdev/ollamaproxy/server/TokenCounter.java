@@ -0,0 +1,109 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fast, dependency-free token counter used for context budgeting.
+ * <p>
+ * Text is split with the cl100k/o200k pre-tokenizer pattern, so piece boundaries
+ * match what the real BPE sees. The cost of each piece is then estimated from its
+ * UTF-8 length, measured in place without copying the piece or encoding it. The
+ * result is an estimate that errs on the high side, which is what we want when
+ * deciding whether a prompt fits.
+ */
+public final class TokenCounter {
+
+    /** Pre-tokenizer pattern shared by the cl100k_base and o200k_base encodings. */
+    private static final Pattern PRE_TOKENIZER = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)"
+                    + "|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+"
+                    + "|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+                    + "|\\s*[\\r\\n]+"
+                    + "|\\s+(?!\\S)"
+                    + "|\\s+");
+
+    // Chat framing overhead as documented for the OpenAI chat format.
+    private static final int TOKENS_PER_MESSAGE = 3;
+    private static final int TOKENS_PER_NAME = 1;
+    static final int TOKENS_REPLY_PRIMING = 3;
+
+    private TokenCounter() {
+    }
+
+    /**
+     * Counts the tokens of a plain string.
+     */
+    public static int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        Matcher matcher = PRE_TOKENIZER.matcher(text);
+        while (matcher.find()) {
+            tokens += estimatePiece(text, matcher.start(), matcher.end());
+        }
+        return tokens;
+    }
+
+    /**
+     * Counts the tokens of a single chat message, including its framing overhead.
+     */
+    public static int countMessage(JsonNode message) {
+        int tokens = TOKENS_PER_MESSAGE;
+        tokens += count(message.path("role").asText(""));
+        tokens += count(message.path("content").asText(""));
+        if (message.hasNonNull("name")) {
+            tokens += TOKENS_PER_NAME + count(message.get("name").asText());
+        }
+        for (JsonNode call : message.path("tool_calls")) {
+            JsonNode function = call.path("function");
+            JsonNode arguments = function.path("arguments");
+            tokens += count(function.path("name").asText(""));
+            // Ollama sends arguments as an object, OpenAI as a JSON string.
+            tokens += count(arguments.isTextual() ? arguments.asText() : arguments.isMissingNode() ? "" : arguments.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Counts the tokens of a request's {@code tools} definitions, which upstream adds to the prompt.
+     */
+    public static int countTools(JsonNode tools) {
+        return tools == null || tools.isEmpty() ? 0 : count(tools.toString());
+    }
+
+    /**
+     * Counts the tokens of an Ollama {@code /api/chat} message list, including reply priming.
+     */
+    public static int countMessages(JsonNode messages) {
+        int tokens = TOKENS_REPLY_PRIMING;
+        for (JsonNode message : messages) {
+            tokens += countMessage(message);
+        }
+        return tokens;
+    }
+
+    /**
+     * ASCII pieces merge into roughly six-byte vocabulary entries; non-ASCII text merges
+     * much worse, so it is charged about one token per three bytes.
+     */
+    private static int estimatePiece(CharSequence text, int start, int end) {
+        int bytes = 0;
+        boolean ascii = true;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else {
+                ascii = false;
+                // A surrogate pair is four bytes in UTF-8, two per char.
+                bytes += c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
+            }
+        }
+        return ascii ? (bytes + 5) / 6 : (bytes + 2) / 3;
+    }
+}
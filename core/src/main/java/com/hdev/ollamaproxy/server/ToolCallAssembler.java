@@ -0,0 +1,166 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Collects streamed OpenAI {@code delta.tool_calls} fragments and turns them into the
+ * complete tool calls Ollama clients expect. Argument fragments are appended to one
+ * {@link StringBuilder} per call index, and the builders are kept between streams on
+ * the same thread, so a long stream of tiny fragments costs amortized O(n) with no
+ * per-stream buffer allocation.
+ */
+class ToolCallAssembler {
+
+    // Builders that grew past this are dropped on reset so one huge call does not pin memory.
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<ToolCallAssembler> PER_THREAD = ThreadLocal.withInitial(ToolCallAssembler::new);
+
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<StringBuilder> arguments = new ArrayList<>();
+    private int size;
+
+    /** Returns this thread's assembler, emptied and ready for a new stream. */
+    static ToolCallAssembler acquire() {
+        ToolCallAssembler assembler = PER_THREAD.get();
+        assembler.reset();
+        return assembler;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Merges one chunk's {@code delta.tool_calls} array. */
+    void append(JsonNode toolCallDeltas) {
+        for (JsonNode delta : toolCallDeltas) {
+            int index = delta.path("index").asInt(size);
+            ensureSize(index + 1);
+            if (delta.hasNonNull("id")) {
+                ids.set(index, delta.get("id").asText());
+            }
+            JsonNode function = delta.path("function");
+            if (function.hasNonNull("name")) {
+                names.set(index, function.get("name").asText());
+            }
+            if (function.hasNonNull("arguments")) {
+                arguments.get(index).append(function.get("arguments").asText());
+            }
+        }
+    }
+
+    /** Builds the Ollama {@code message.tool_calls} array and empties the assembler. */
+    ArrayNode drain(ObjectMapper mapper) {
+        ArrayNode toolCalls = mapper.createArrayNode();
+        for (int i = 0; i < size; i++) {
+            toolCalls.add(toOllamaToolCall(mapper, ids.get(i), names.get(i), arguments.get(i)));
+        }
+        reset();
+        return toolCalls;
+    }
+
+    /**
+     * Converts a complete OpenAI {@code tool_calls} array (arguments as a JSON string)
+     * to Ollama's format (arguments as a JSON object).
+     */
+    static ArrayNode toOllamaToolCalls(ObjectMapper mapper, JsonNode openAiToolCalls) {
+        ArrayNode toolCalls = mapper.createArrayNode();
+        for (JsonNode call : openAiToolCalls) {
+            JsonNode function = call.path("function");
+            toolCalls.add(toOllamaToolCall(mapper, call.path("id").asText(null),
+                    function.path("name").asText(""), function.path("arguments").asText("")));
+        }
+        return toolCalls;
+    }
+
+    /**
+     * Rewrites Ollama-style tool-call history in place so OpenAI-compatible upstreams accept it:
+     * assistant tool calls get string arguments and an id, and each {@code tool} result is linked
+     * to the pending call it answers. Ollama clients send neither ids nor {@code tool_call_id},
+     * so results are matched to calls in order.
+     */
+    static void toOpenAiMessages(ArrayNode messages) {
+        Deque<String> pendingIds = new ArrayDeque<>();
+        for (int i = 0; i < messages.size(); i++) {
+            if (!(messages.get(i) instanceof ObjectNode message)) continue;
+            String role = message.path("role").asText();
+
+            if ("assistant".equals(role) && message.path("tool_calls").size() > 0) {
+                pendingIds.clear();
+                int j = 0;
+                for (JsonNode node : message.get("tool_calls")) {
+                    if (!(node instanceof ObjectNode call)) continue;
+                    String id = call.hasNonNull("id") ? call.get("id").asText() : "call_" + i + "_" + j;
+                    call.put("id", id);
+                    call.put("type", "function");
+                    if (call.get("function") instanceof ObjectNode function
+                            && function.has("arguments") && !function.get("arguments").isTextual()) {
+                        function.put("arguments", function.get("arguments").toString());
+                    }
+                    pendingIds.add(id);
+                    j++;
+                }
+            } else if ("tool".equals(role) && !message.hasNonNull("tool_call_id") && !pendingIds.isEmpty()) {
+                message.put("tool_call_id", pendingIds.poll());
+            }
+        }
+    }
+
+    private static ObjectNode toOllamaToolCall(ObjectMapper mapper, String id, String name, CharSequence arguments) {
+        ObjectNode function = mapper.createObjectNode();
+        function.put("name", name != null ? name : "");
+        function.set("arguments", parseArguments(mapper, arguments));
+
+        ObjectNode call = mapper.createObjectNode();
+        if (id != null) {
+            call.put("id", id);
+        }
+        call.set("function", function);
+        return call;
+    }
+
+    private static JsonNode parseArguments(ObjectMapper mapper, CharSequence arguments) {
+        if (arguments.length() == 0) {
+            return mapper.createObjectNode();
+        }
+        try {
+            return mapper.readTree(arguments.toString());
+        } catch (Exception e) {
+            // Truncated or invalid JSON from the model: pass it on verbatim rather than lose it.
+            return TextNode.valueOf(arguments.toString());
+        }
+    }
+
+    private void ensureSize(int newSize) {
+        while (arguments.size() < newSize) {
+            ids.add(null);
+            names.add(null);
+            arguments.add(new StringBuilder());
+        }
+        size = Math.max(size, newSize);
+    }
+
+    /** Discards everything assembled so far. */
+    void reset() {
+        for (int i = 0; i < size; i++) {
+            ids.set(i, null);
+            names.set(i, null);
+            if (arguments.get(i).capacity() > MAX_RETAINED_CAPACITY) {
+                arguments.set(i, new StringBuilder());
+            } else {
+                arguments.get(i).setLength(0);
+            }
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package com.hdev.ollamaproxy.trace;
+
+/**
+ * Per-request handle returned by {@link Tracer#begin}. Requests that are not sampled get
+ * {@link #NONE}, whose methods return immediately, so the per-chunk call costs nothing.
+ */
+public class RequestTrace {
+
+    public static final RequestTrace NONE = new RequestTrace(null, 0, null, null);
+
+    private final Tracer tracer;
+    private final long requestId;
+    private final String model;
+    private final String tenant;
+    private final long startNanos = System.nanoTime();
+    private int chunks;
+
+    RequestTrace(Tracer tracer, long requestId, String model, String tenant) {
+        this.tracer = tracer;
+        this.requestId = requestId;
+        this.model = model;
+        this.tenant = tenant;
+    }
+
+    public void chunk(String content) {
+        if (tracer == null) return;
+        chunks++;
+        tracer.record(requestId, TraceEvent.Type.CHUNK, model, tenant, content);
+    }
+
+    public void end(String finishReason) {
+        if (tracer == null) return;
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        tracer.recordMeta(requestId, TraceEvent.Type.RESPONSE, model, tenant,
+                finishReason + " chunks=" + chunks + " ms=" + millis);
+    }
+
+    public void error(Throwable error) {
+        if (tracer == null) return;
+        tracer.recordMeta(requestId, TraceEvent.Type.ERROR, model, tenant,
+                error.getClass().getSimpleName() + ": " + error.getMessage());
+    }
+}
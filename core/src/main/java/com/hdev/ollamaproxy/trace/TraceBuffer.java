@@ -0,0 +1,67 @@
+package com.hdev.ollamaproxy.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free, fixed-size ring of {@link TraceEvent}s. Producers claim a sequence number
+ * with a single atomic increment and overwrite the oldest slot; nothing ever blocks the
+ * streaming thread. Readers validate each slot's sequence so a lapped or not-yet-published
+ * slot is simply skipped.
+ */
+public final class TraceBuffer {
+
+    private final AtomicReferenceArray<TraceEvent> slots;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    public TraceBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    long claim() {
+        return next.getAndIncrement();
+    }
+
+    void publish(TraceEvent event) {
+        slots.set((int) (event.sequence & mask), event);
+    }
+
+    /** The sequence number the next event will get. */
+    long head() {
+        return next.get();
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    /** Returns whatever currently occupies the slot for {@code sequence}, which may be older or newer. */
+    TraceEvent slot(long sequence) {
+        return slots.get((int) (sequence & mask));
+    }
+
+    /** Returns the event with the given sequence, or null if it was overwritten or is not yet visible. */
+    TraceEvent get(long sequence) {
+        TraceEvent event = slot(sequence);
+        return event != null && event.sequence == sequence ? event : null;
+    }
+
+    /** Returns up to {@code limit} of the most recent events, oldest first. */
+    public List<TraceEvent> recent(int limit) {
+        long head = head();
+        long from = Math.max(0, head - Math.min(limit, capacity()));
+        List<TraceEvent> events = new ArrayList<>((int) (head - from));
+        for (long seq = from; seq < head; seq++) {
+            TraceEvent event = get(seq);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+}
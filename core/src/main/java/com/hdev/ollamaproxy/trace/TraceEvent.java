@@ -0,0 +1,42 @@
+package com.hdev.ollamaproxy.trace;
+
+/**
+ * A single captured request/response event. Instances are immutable once published
+ * to the {@link TraceBuffer}, so readers never need to synchronize with writers.
+ */
+public final class TraceEvent {
+
+    public enum Type {
+        REQUEST("q"), CHUNK("c"), RESPONSE("r"), ERROR("e");
+
+        // One-letter form used in the on-disk trace files.
+        final String code;
+
+        Type(String code) {
+            this.code = code;
+        }
+    }
+
+    public final long sequence;
+    public final long timestamp;
+    public final long requestId;
+    public final Type type;
+    public final String model;
+    public final String tenant;
+    // Already redacted; null when content capture is disabled.
+    public final String text;
+    // Character count of the original payload, kept even when the text is dropped.
+    public final int size;
+
+    TraceEvent(long sequence, long timestamp, long requestId, Type type,
+               String model, String tenant, String text, int size) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.requestId = requestId;
+        this.type = type;
+        this.model = model;
+        this.tenant = tenant;
+        this.text = text;
+        this.size = size;
+    }
+}
@@ -0,0 +1,148 @@
+package com.hdev.ollamaproxy.trace;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background thread that drains the {@link TraceBuffer} into rolling NDJSON files
+ * ({@code trace-0.ndjson} is current, higher numbers are older). Lines use one-letter
+ * keys to keep the files small. If producers lap the writer, the skipped events are
+ * counted and noted in the file instead of slowing anyone down.
+ */
+class TraceFileWriter {
+    private static final Logger LOG = Logger.getLogger(TraceFileWriter.class.getName());
+
+    private static final long FLUSH_INTERVAL_MILLIS = 500;
+    private static final long MAX_FILE_BYTES = 8L * 1024 * 1024;
+    private static final int MAX_FILES = 5;
+
+    private final TraceBuffer buffer;
+    private final Path directory;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private volatile boolean running;
+    private Thread thread;
+    private long cursor;
+
+    TraceFileWriter(TraceBuffer buffer, Path directory) {
+        this.buffer = buffer;
+        this.directory = directory;
+    }
+
+    synchronized void start() {
+        if (thread != null) return;
+        running = true;
+        cursor = buffer.head();
+        thread = new Thread(this::run, "ollama-proxy-trace-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    synchronized void stop() {
+        if (thread == null) return;
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    private void run() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Cannot create trace directory " + directory, e);
+            return;
+        }
+        while (running) {
+            try {
+                Thread.sleep(FLUSH_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                // Woken by stop(): fall through for a final drain.
+            }
+            try {
+                drain();
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Failed to write trace file", e);
+            }
+        }
+    }
+
+    /** Appends everything published since the last pass. Runs on the writer thread. */
+    void drain() throws IOException {
+        long head = buffer.head();
+        if (cursor == head) return;
+
+        Path current = directory.resolve("trace-0.ndjson");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(current,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+             JsonGenerator json = jsonFactory.createGenerator(out)) {
+
+            json.setRootValueSeparator(null); // Lines are terminated explicitly below.
+            long dropped = 0;
+            if (head - cursor > buffer.capacity()) {
+                dropped = head - cursor - buffer.capacity();
+                cursor = head - buffer.capacity();
+            }
+            while (cursor < head) {
+                TraceEvent event = buffer.slot(cursor);
+                if (event == null || event.sequence < cursor) {
+                    break; // Claimed but not yet published; pick it up on the next pass.
+                }
+                if (event.sequence > cursor) {
+                    dropped++; // Lapped while we were writing.
+                } else {
+                    write(json, event);
+                }
+                cursor++;
+            }
+            if (dropped > 0) {
+                json.writeStartObject();
+                json.writeNumberField("t", System.currentTimeMillis());
+                json.writeNumberField("dropped", dropped);
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+        }
+
+        if (Files.size(current) > MAX_FILE_BYTES) {
+            rotate();
+        }
+    }
+
+    private static void write(JsonGenerator json, TraceEvent event) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("s", event.sequence);
+        json.writeNumberField("t", event.timestamp);
+        json.writeNumberField("r", event.requestId);
+        json.writeStringField("k", event.type.code);
+        json.writeStringField("m", event.model);
+        if (event.tenant != null) json.writeStringField("u", event.tenant);
+        if (event.text != null) json.writeStringField("x", event.text);
+        json.writeNumberField("n", event.size);
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void rotate() throws IOException {
+        Files.deleteIfExists(directory.resolve("trace-" + (MAX_FILES - 1) + ".ndjson"));
+        for (int i = MAX_FILES - 2; i >= 0; i--) {
+            Path from = directory.resolve("trace-" + i + ".ndjson");
+            if (Files.exists(from)) {
+                Files.move(from, directory.resolve("trace-" + (i + 1) + ".ndjson"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.hdev.ollamaproxy.trace;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Entry point of the tracing subsystem. Decides per request whether it is sampled,
+ * redacts what it captures and publishes events to the in-memory {@link TraceBuffer}.
+ * Persisting to disk happens on the {@link TraceFileWriter} thread, never on the caller.
+ */
+public class Tracer {
+
+    private static final int BUFFER_CAPACITY = 4096;
+
+    // Bearer tokens, "sk-..." style keys and api_key/apiKey JSON or query fields.
+    private static final Pattern SECRET = Pattern.compile(
+            "(?i)(bearer\\s+|\\bsk-|api[_-]?key\"?\\s*[:=]\\s*\"?)[A-Za-z0-9._~+/=-]{6,}");
+
+    private final double sampleRate;
+    private final boolean includeContent;
+    private final TraceBuffer buffer = new TraceBuffer(BUFFER_CAPACITY);
+    private final AtomicLong requestIds = new AtomicLong();
+    private final TraceFileWriter fileWriter;
+
+    /**
+     * @param sampleRate     Fraction of requests to trace, between 0 and 1.
+     * @param includeContent Whether message and chunk text is kept (after key redaction).
+     * @param directory      Where rolling trace files go, or null to keep traces in memory only.
+     */
+    public Tracer(double sampleRate, boolean includeContent, Path directory) {
+        this.sampleRate = sampleRate;
+        this.includeContent = includeContent;
+        this.fileWriter = directory != null && sampleRate > 0 ? new TraceFileWriter(buffer, directory) : null;
+    }
+
+    public void start() {
+        if (fileWriter != null) fileWriter.start();
+    }
+
+    public void stop() {
+        if (fileWriter != null) fileWriter.stop();
+    }
+
+    public TraceBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Starts tracing a chat request, or returns {@link RequestTrace#NONE} if it is not sampled.
+     */
+    public RequestTrace begin(String model, String tenant, ObjectNode request) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return RequestTrace.NONE;
+        }
+        long requestId = requestIds.incrementAndGet();
+        String body = request.toString();
+        String text = includeContent ? redact(body) : redact(withoutContent(request).toString());
+        publish(requestId, TraceEvent.Type.REQUEST, model, tenant, text, body.length());
+        return new RequestTrace(this, requestId, model, tenant);
+    }
+
+    void record(long requestId, TraceEvent.Type type, String model, String tenant, String content) {
+        String text = includeContent ? redact(content) : null;
+        publish(requestId, type, model, tenant, text, content.length());
+    }
+
+    // Metadata (timings, error messages) is always kept, but still goes through key redaction.
+    void recordMeta(long requestId, TraceEvent.Type type, String model, String tenant, String text) {
+        publish(requestId, type, model, tenant, redact(text), text.length());
+    }
+
+    private void publish(long requestId, TraceEvent.Type type, String model, String tenant, String text, int size) {
+        long sequence = buffer.claim();
+        buffer.publish(new TraceEvent(sequence, System.currentTimeMillis(), requestId, type, model, tenant, text, size));
+    }
+
+    static String redact(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        return SECRET.matcher(text).replaceAll("$1***");
+    }
+
+    // Replaces message text, images, tool-call arguments and tool schemas with their size,
+    // so the request shape stays visible without the user's code or files.
+    private static JsonNode withoutContent(ObjectNode request) {
+        ObjectNode copy = request.deepCopy();
+        for (JsonNode message : copy.path("messages")) {
+            if (!(message instanceof ObjectNode messageNode)) continue;
+            scrub(messageNode, "content");
+            scrub(messageNode, "thinking");
+            scrub(messageNode, "images");
+            for (JsonNode call : messageNode.path("tool_calls")) {
+                if (call.get("function") instanceof ObjectNode function) {
+                    scrub(function, "arguments");
+                }
+            }
+        }
+        scrub(copy, "tools");
+        return copy;
+    }
+
+    private static void scrub(ObjectNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return;
+        }
+        int chars = value.isTextual() ? value.asText().length() : value.toString().length();
+        node.set(field, TextNode.valueOf("<" + chars + " chars>"));
+    }
+}
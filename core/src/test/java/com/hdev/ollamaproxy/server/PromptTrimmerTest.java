@@ -0,0 +1,94 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PromptTrimmerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private ArrayNode messages(String json) throws Exception {
+        return (ArrayNode) mapper.readTree(json);
+    }
+
+    private static List<String> contents(ArrayNode messages) {
+        List<String> contents = new ArrayList<>();
+        messages.forEach(message -> contents.add(message.path("content").asText()));
+        return contents;
+    }
+
+    @Test
+    void leavesAPromptThatFitsUntouched() throws Exception {
+        ArrayNode messages = messages("[{\"role\":\"user\",\"content\":\"hi\"},"
+                + "{\"role\":\"assistant\",\"content\":\"hello\"},{\"role\":\"user\",\"content\":\"bye\"}]");
+        int tokens = TokenCounter.countMessages(messages);
+
+        assertEquals(tokens, PromptTrimmer.trim(messages, tokens));
+        assertEquals(3, messages.size());
+    }
+
+    @Test
+    void dropsOldestTurnsButKeepsSystemAndLatest() throws Exception {
+        ArrayNode messages = messages("[{\"role\":\"system\",\"content\":\"sys\"},"
+                + "{\"role\":\"user\",\"content\":\"first question with quite a few words in it\"},"
+                + "{\"role\":\"assistant\",\"content\":\"first answer with quite a few words in it\"},"
+                + "{\"role\":\"user\",\"content\":\"latest\"}]");
+
+        int tokens = PromptTrimmer.trim(messages, 0);
+
+        assertEquals(List.of("sys", "latest"), contents(messages));
+        assertEquals(TokenCounter.countMessages(messages), tokens);
+    }
+
+    @Test
+    void dropsToolCallTogetherWithItsResults() throws Exception {
+        ArrayNode messages = messages("[{\"role\":\"user\",\"content\":\"q1\"},"
+                + "{\"role\":\"assistant\",\"content\":\"call\",\"tool_calls\":[{\"function\":{\"name\":\"f\",\"arguments\":{}}}]},"
+                + "{\"role\":\"tool\",\"content\":\"r1\"},"
+                + "{\"role\":\"tool\",\"content\":\"r2\"},"
+                + "{\"role\":\"user\",\"content\":\"q2\"},"
+                + "{\"role\":\"assistant\",\"content\":\"a2\"},"
+                + "{\"role\":\"user\",\"content\":\"q3\"}]");
+        ArrayNode fromQ2 = messages("[{\"role\":\"user\",\"content\":\"q2\"},"
+                + "{\"role\":\"assistant\",\"content\":\"a2\"},{\"role\":\"user\",\"content\":\"q3\"}]");
+
+        // Room for q2 onwards only: dropping q1 alone would orphan the tool call and its results.
+        PromptTrimmer.trim(messages, TokenCounter.countMessages(fromQ2));
+
+        assertEquals(List.of("q2", "a2", "q3"), contents(messages));
+    }
+
+    @Test
+    void keepsLatestToolCallWithItsResults() throws Exception {
+        ArrayNode messages = messages("[{\"role\":\"user\",\"content\":\"q1\"},"
+                + "{\"role\":\"assistant\",\"content\":\"call\",\"tool_calls\":[{\"function\":{\"name\":\"f\",\"arguments\":{}}}]},"
+                + "{\"role\":\"tool\",\"content\":\"r1\"},"
+                + "{\"role\":\"tool\",\"content\":\"r2\"}]");
+
+        int tokens = PromptTrimmer.trim(messages, 0);
+
+        // The latest message is a tool result, so its call is kept and the result set stays whole.
+        assertEquals(List.of("call", "r1", "r2"), contents(messages));
+        assertTrue(tokens > 0);
+    }
+
+    @Test
+    void neverStartsKeptHistoryWithAReply() throws Exception {
+        ArrayNode messages = messages("[{\"role\":\"user\",\"content\":\"q1 with enough words to need dropping\"},"
+                + "{\"role\":\"assistant\",\"content\":\"a1\"},"
+                + "{\"role\":\"user\",\"content\":\"q2\"}]");
+        ArrayNode fromA1 = messages("[{\"role\":\"assistant\",\"content\":\"a1\"},{\"role\":\"user\",\"content\":\"q2\"}]");
+
+        // a1 would fit, but history must not start with an assistant turn.
+        PromptTrimmer.trim(messages, TokenCounter.countMessages(fromA1));
+
+        assertEquals(List.of("q2"), contents(messages));
+    }
+}
@@ -0,0 +1,103 @@
+package com.hdev.ollamaproxy.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ToolCallAssemblerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private JsonNode json(String text) throws Exception {
+        return mapper.readTree(text);
+    }
+
+    @Test
+    void assemblesArgumentFragmentsPerIndex() throws Exception {
+        ToolCallAssembler assembler = ToolCallAssembler.acquire();
+        assembler.append(json("[{\"index\":0,\"id\":\"c1\",\"function\":{\"name\":\"get_weather\",\"arguments\":\"\"}}]"));
+        assembler.append(json("[{\"index\":1,\"id\":\"c2\",\"function\":{\"name\":\"get_time\",\"arguments\":\"{\\\"tz\\\":\"}}]"));
+        assembler.append(json("[{\"index\":0,\"function\":{\"arguments\":\"{\\\"ci\"}}]"));
+        assembler.append(json("[{\"index\":0,\"function\":{\"arguments\":\"ty\\\":\\\"Tokyo\\\"}\"}}]"));
+        assembler.append(json("[{\"index\":1,\"function\":{\"arguments\":\"\\\"UTC\\\"}\"}}]"));
+
+        ArrayNode calls = assembler.drain(mapper);
+
+        assertEquals(json("[{\"id\":\"c1\",\"function\":{\"name\":\"get_weather\",\"arguments\":{\"city\":\"Tokyo\"}}},"
+                + "{\"id\":\"c2\",\"function\":{\"name\":\"get_time\",\"arguments\":{\"tz\":\"UTC\"}}}]"), calls);
+        assertTrue(assembler.isEmpty());
+    }
+
+    @Test
+    void keepsInvalidArgumentsVerbatim() throws Exception {
+        ToolCallAssembler assembler = ToolCallAssembler.acquire();
+        assembler.append(json("[{\"index\":0,\"function\":{\"name\":\"f\",\"arguments\":\"{\\\"a\\\":\"}}]"));
+
+        JsonNode call = assembler.drain(mapper).get(0);
+
+        assertFalse(call.has("id"));
+        assertEquals("{\"a\":", call.path("function").path("arguments").asText());
+    }
+
+    @Test
+    void acquireStartsEmpty() throws Exception {
+        ToolCallAssembler.acquire().append(json("[{\"index\":0,\"function\":{\"name\":\"f\",\"arguments\":\"{}\"}}]"));
+
+        ToolCallAssembler assembler = ToolCallAssembler.acquire();
+
+        assertTrue(assembler.isEmpty());
+        assertEquals(0, assembler.drain(mapper).size());
+    }
+
+    @Test
+    void convertsCompleteOpenAiToolCalls() throws Exception {
+        ArrayNode calls = ToolCallAssembler.toOllamaToolCalls(mapper,
+                json("[{\"id\":\"c1\",\"type\":\"function\",\"function\":{\"name\":\"f\",\"arguments\":\"{\\\"x\\\":1}\"}}]"));
+
+        assertEquals(json("[{\"id\":\"c1\",\"function\":{\"name\":\"f\",\"arguments\":{\"x\":1}}}]"), calls);
+    }
+
+    @Test
+    void linksToolResultsToCallsInOrder() throws Exception {
+        ArrayNode messages = (ArrayNode) json("["
+                + "{\"role\":\"user\",\"content\":\"weather and time?\"},"
+                + "{\"role\":\"assistant\",\"content\":\"\",\"tool_calls\":["
+                + "{\"function\":{\"name\":\"get_weather\",\"arguments\":{\"city\":\"Tokyo\"}}},"
+                + "{\"function\":{\"name\":\"get_time\",\"arguments\":{\"tz\":\"UTC\"}}}]},"
+                + "{\"role\":\"tool\",\"content\":\"sunny\"},"
+                + "{\"role\":\"tool\",\"content\":\"12:00\"}]");
+
+        ToolCallAssembler.toOpenAiMessages(messages);
+
+        JsonNode calls = messages.get(1).get("tool_calls");
+        assertEquals("call_1_0", calls.get(0).get("id").asText());
+        assertEquals("call_1_1", calls.get(1).get("id").asText());
+        assertEquals("function", calls.get(0).get("type").asText());
+        assertEquals("{\"city\":\"Tokyo\"}", calls.get(0).path("function").get("arguments").asText());
+        assertEquals("call_1_0", messages.get(2).get("tool_call_id").asText());
+        assertEquals("call_1_1", messages.get(3).get("tool_call_id").asText());
+    }
+
+    @Test
+    void keepsExistingIdsAndOnlyLinksTheLatestCalls() throws Exception {
+        ArrayNode messages = (ArrayNode) json("["
+                + "{\"role\":\"assistant\",\"tool_calls\":[{\"id\":\"old\",\"function\":{\"name\":\"f\",\"arguments\":\"{}\"}}]},"
+                + "{\"role\":\"assistant\",\"tool_calls\":[{\"id\":\"new\",\"function\":{\"name\":\"f\",\"arguments\":\"{}\"}}]},"
+                + "{\"role\":\"tool\",\"content\":\"a\"},"
+                + "{\"role\":\"tool\",\"content\":\"b\",\"tool_call_id\":\"explicit\"},"
+                + "{\"role\":\"tool\",\"content\":\"c\"}]");
+
+        ToolCallAssembler.toOpenAiMessages(messages);
+
+        assertEquals("new", messages.get(1).get("tool_calls").get(0).get("id").asText());
+        assertEquals("new", messages.get(2).get("tool_call_id").asText());
+        assertEquals("explicit", messages.get(3).get("tool_call_id").asText());
+        // More results than calls: nothing left to link to.
+        assertFalse(messages.get(4).has("tool_call_id"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.hdev.ollamaproxy.trace;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TraceBufferTest {
+
+    private static TraceEvent publish(TraceBuffer buffer) {
+        return publish(buffer, buffer.claim());
+    }
+
+    private static TraceEvent publish(TraceBuffer buffer, long sequence) {
+        TraceEvent event = new TraceEvent(sequence, 0, 1, TraceEvent.Type.CHUNK, "m", null, null, 0);
+        buffer.publish(event);
+        return event;
+    }
+
+    private static List<Long> sequences(List<TraceEvent> events) {
+        List<Long> sequences = new ArrayList<>();
+        events.forEach(event -> sequences.add(event.sequence));
+        return sequences;
+    }
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(8, new TraceBuffer(5).capacity());
+        assertEquals(8, new TraceBuffer(8).capacity());
+        assertEquals(16, new TraceBuffer(9).capacity());
+    }
+
+    @Test
+    void returnsRecentEventsOldestFirst() {
+        TraceBuffer buffer = new TraceBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            publish(buffer);
+        }
+
+        assertEquals(List.of(2L, 3L, 4L), sequences(buffer.recent(3)));
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), sequences(buffer.recent(100)));
+    }
+
+    @Test
+    void lappedEventsAreOverwritten() {
+        TraceBuffer buffer = new TraceBuffer(8);
+        for (int i = 0; i < 11; i++) {
+            publish(buffer);
+        }
+
+        assertNull(buffer.get(2));
+        assertEquals(10, buffer.slot(2).sequence);
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), sequences(buffer.recent(100)));
+    }
+
+    @Test
+    void skipsClaimedButUnpublishedSlots() {
+        TraceBuffer buffer = new TraceBuffer(8);
+        publish(buffer);
+        long pending = buffer.claim();
+        publish(buffer);
+
+        assertNull(buffer.get(pending));
+        assertEquals(List.of(0L, 2L), sequences(buffer.recent(100)));
+    }
+
+    @Test
+    void fileWriterCountsLappedEventsAsDropped(@TempDir Path directory) throws Exception {
+        TraceBuffer buffer = new TraceBuffer(8);
+        TraceFileWriter writer = new TraceFileWriter(buffer, directory);
+        for (int i = 0; i < 11; i++) {
+            publish(buffer);
+        }
+
+        writer.drain();
+
+        List<JsonNode> lines = readLines(directory.resolve("trace-0.ndjson"));
+        List<Long> written = new ArrayList<>();
+        lines.subList(0, lines.size() - 1).forEach(line -> written.add(line.get("s").asLong()));
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), written);
+        assertEquals(3, lines.get(lines.size() - 1).get("dropped").asLong());
+    }
+
+    @Test
+    void fileWriterWaitsForUnpublishedEvents(@TempDir Path directory) throws Exception {
+        TraceBuffer buffer = new TraceBuffer(8);
+        TraceFileWriter writer = new TraceFileWriter(buffer, directory);
+        publish(buffer);
+        long pending = buffer.claim();
+        publish(buffer);
+
+        writer.drain();
+        assertEquals(1, readLines(directory.resolve("trace-0.ndjson")).size());
+
+        publish(buffer, pending);
+        writer.drain();
+
+        List<JsonNode> lines = readLines(directory.resolve("trace-0.ndjson"));
+        assertEquals(3, lines.size());
+        assertEquals(2, lines.get(2).get("s").asLong());
+    }
+
+    private static List<JsonNode> readLines(Path file) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            lines.add(mapper.readTree(line));
+        }
+        return lines;
+    }
+}
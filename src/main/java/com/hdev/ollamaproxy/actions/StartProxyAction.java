@@ -13,7 +13,7 @@ public class StartProxyAction extends AnAction {
 
     @Override
     public void update(@NotNull AnActionEvent e) {
-        // Enable this action only if the server is not running
-        e.getPresentation().setEnabled(!ProxyServer.isRunning());
+        // Enable this action only if the server is neither running nor starting
+        e.getPresentation().setEnabled(!ProxyServer.isRunning() && !ProxyServer.isStarting());
     }
 }
\ No newline at end of file
@@ -4,21 +4,28 @@ import javax.swing.*;
 
 public class AppSettingsComponent {
 
-    private JComboBox<AppSettingsState.ServiceType> serviceTypeComboBox;
+    private JComboBox<ServiceType> serviceTypeComboBox;
     private JPanel mainPanel;
     private JPasswordField apiKeyField;
     private JTextField baseUrlField;
     private JSpinner portSpinner;
     private JCheckBox autoStartCheckbox;
     private JTextArea modelFilterArea;
+    private JSpinner contextWindowSpinner;
+    private JCheckBox trimPromptCheckbox;
+    private JSpinner traceSampleSpinner;
+    private JCheckBox traceIncludeContentCheckbox;
+    private JCheckBox traceToDiskCheckbox;
 
     public AppSettingsComponent() {
         // Populate the dropdown with values from the enum
-        serviceTypeComboBox.setModel(new DefaultComboBoxModel<>(AppSettingsState.ServiceType.values()));
+        serviceTypeComboBox.setModel(new DefaultComboBoxModel<>(ServiceType.values()));
     }
 
     private void createUIComponents() {
         portSpinner = new JSpinner(new SpinnerNumberModel(11434, 1024, 65535, 1));
+        contextWindowSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 10_000_000, 1024));
+        traceSampleSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 100, 1));
     }
 
     public JPanel getPanel() {
@@ -47,8 +54,28 @@ public class AppSettingsComponent {
         return modelFilterArea != null ? modelFilterArea.getText() : "";
     }
 
-    public AppSettingsState.ServiceType getServiceType() {
-        return serviceTypeComboBox != null ? (AppSettingsState.ServiceType) serviceTypeComboBox.getSelectedItem() : AppSettingsState.ServiceType.OPENAI_COMPATIBLE;
+    public int getContextWindow() {
+        return contextWindowSpinner != null ? (Integer) contextWindowSpinner.getValue() : 0;
+    }
+
+    public boolean getTrimPrompt() {
+        return trimPromptCheckbox != null ? trimPromptCheckbox.isSelected() : false;
+    }
+
+    public int getTraceSamplePercent() {
+        return traceSampleSpinner != null ? (Integer) traceSampleSpinner.getValue() : 0;
+    }
+
+    public boolean getTraceIncludeContent() {
+        return traceIncludeContentCheckbox != null ? traceIncludeContentCheckbox.isSelected() : false;
+    }
+
+    public boolean getTraceToDisk() {
+        return traceToDiskCheckbox != null ? traceToDiskCheckbox.isSelected() : false;
+    }
+
+    public ServiceType getServiceType() {
+        return serviceTypeComboBox != null ? (ServiceType) serviceTypeComboBox.getSelectedItem() : ServiceType.OPENAI_COMPATIBLE;
     }
 
     // --- SETTERS ---
@@ -73,8 +100,28 @@ public class AppSettingsComponent {
         if (modelFilterArea != null) modelFilterArea.setText(text);
     }
 
-    public void setServiceType(AppSettingsState.ServiceType serviceType) {
+    public void setServiceType(ServiceType serviceType) {
         if (serviceTypeComboBox != null) serviceTypeComboBox.setSelectedItem(serviceType);
     }
 
+    public void setContextWindow(int value) {
+        if (contextWindowSpinner != null) contextWindowSpinner.setValue(value);
+    }
+
+    public void setTrimPrompt(boolean selected) {
+        if (trimPromptCheckbox != null) trimPromptCheckbox.setSelected(selected);
+    }
+
+    public void setTraceSamplePercent(int value) {
+        if (traceSampleSpinner != null) traceSampleSpinner.setValue(value);
+    }
+
+    public void setTraceIncludeContent(boolean selected) {
+        if (traceIncludeContentCheckbox != null) traceIncludeContentCheckbox.setSelected(selected);
+    }
+
+    public void setTraceToDisk(boolean selected) {
+        if (traceToDiskCheckbox != null) traceToDiskCheckbox.setSelected(selected);
+    }
+
 }
@@ -49,7 +49,12 @@ public class AppSettingsConfigurable implements SearchableConfigurable {
                 !mySettingsComponent.getBaseUrl().equals(settings.openAiBaseUrl) ||
                 mySettingsComponent.getPort() != settings.serverPort ||
                 mySettingsComponent.getAutoStart() != settings.autoStartServer ||
-                !mySettingsComponent.getModelFilter().equals(settings.modelFilter);
+                !mySettingsComponent.getModelFilter().equals(settings.modelFilter) ||
+                mySettingsComponent.getContextWindow() != settings.contextWindowTokens ||
+                mySettingsComponent.getTrimPrompt() != settings.trimPromptToContext ||
+                mySettingsComponent.getTraceSamplePercent() != settings.traceSamplePercent ||
+                mySettingsComponent.getTraceIncludeContent() != settings.traceIncludeContent ||
+                mySettingsComponent.getTraceToDisk() != settings.traceToDisk;
     }
 
     @Override
@@ -70,6 +75,11 @@ public class AppSettingsConfigurable implements SearchableConfigurable {
         settings.autoStartServer = mySettingsComponent.getAutoStart();
         settings.modelFilter = mySettingsComponent.getModelFilter();
         settings.serviceType = mySettingsComponent.getServiceType();
+        settings.contextWindowTokens = mySettingsComponent.getContextWindow();
+        settings.trimPromptToContext = mySettingsComponent.getTrimPrompt();
+        settings.traceSamplePercent = mySettingsComponent.getTraceSamplePercent();
+        settings.traceIncludeContent = mySettingsComponent.getTraceIncludeContent();
+        settings.traceToDisk = mySettingsComponent.getTraceToDisk();
     }
 
     @Override
@@ -84,6 +94,11 @@ public class AppSettingsConfigurable implements SearchableConfigurable {
         mySettingsComponent.setAutoStart(settings.autoStartServer);
         mySettingsComponent.setModelFilter(settings.modelFilter);
         mySettingsComponent.setServiceType(settings.serviceType);
+        mySettingsComponent.setContextWindow(settings.contextWindowTokens);
+        mySettingsComponent.setTrimPrompt(settings.trimPromptToContext);
+        mySettingsComponent.setTraceSamplePercent(settings.traceSamplePercent);
+        mySettingsComponent.setTraceIncludeContent(settings.traceIncludeContent);
+        mySettingsComponent.setTraceToDisk(settings.traceToDisk);
     }
 
     @Override
@@ -1,28 +1,12 @@
 package com.hdev.ollamaproxy.config;
 
+import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.components.*;
 import org.jetbrains.annotations.NotNull;
 
 @State(name = "AppSettingsState", storages = @Storage("ollamaProxy.xml"))
 public class AppSettingsState implements PersistentStateComponent<AppSettingsState> {
 
-    // Enum to define the supported service types
-    public enum ServiceType {
-        OPENAI_COMPATIBLE("OpenAI-Compatible (OpenRouter, etc.)"),
-        OPEN_WEBUI("OpenWebUI");
-
-        private final String displayName;
-
-        ServiceType(String displayName) {
-            this.displayName = displayName;
-        }
-
-        @Override
-        public String toString() {
-            return displayName;
-        }
-    }
-
     public ServiceType serviceType = ServiceType.OPENAI_COMPATIBLE;
 
     public String openAiApiKey = "";
@@ -30,12 +14,33 @@ public class AppSettingsState implements PersistentStateComponent<AppSettingsSta
     public int serverPort = 11434;
     public boolean autoStartServer = false;
     public String modelFilter = "";
+    public int contextWindowTokens = 0;
+    public boolean trimPromptToContext = false;
+    // Tracing is off by default in the IDE: traces can hold prompts, code and tool output.
+    public int traceSamplePercent = 0;
+    public boolean traceIncludeContent = false;
+    public boolean traceToDisk = false;
 
     @NotNull
     public static AppSettingsState getInstance() {
         return ServiceManager.getService(AppSettingsState.class);
     }
 
+    @NotNull
+    public ProxyConfig toProxyConfig() {
+        ProxyConfig config = new ProxyConfig();
+        config.serviceType = serviceType;
+        config.apiKey = openAiApiKey;
+        config.baseUrl = openAiBaseUrl;
+        config.port = serverPort;
+        config.contextWindowTokens = contextWindowTokens;
+        config.trimPromptToContext = trimPromptToContext;
+        config.traceSampleRate = traceSamplePercent / 100.0;
+        config.traceIncludeContent = traceIncludeContent;
+        config.traceDirectory = traceToDisk ? PathManager.getLogPath() + "/ollama-proxy-traces" : null;
+        return config;
+    }
+
     @Override
     public AppSettingsState getState() {
         return this;
@@ -49,5 +54,10 @@ public class AppSettingsState implements PersistentStateComponent<AppSettingsSta
         this.autoStartServer = state.autoStartServer;
         this.modelFilter = state.modelFilter;
         this.serviceType = state.serviceType;
+        this.contextWindowTokens = state.contextWindowTokens;
+        this.trimPromptToContext = state.trimPromptToContext;
+        this.traceSamplePercent = state.traceSamplePercent;
+        this.traceIncludeContent = state.traceIncludeContent;
+        this.traceToDisk = state.traceToDisk;
     }
 }
\ No newline at end of file
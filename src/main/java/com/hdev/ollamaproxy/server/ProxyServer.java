@@ -3,49 +3,78 @@ package com.hdev.ollamaproxy.server;
 import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
 import com.intellij.notification.Notifications;
+import com.intellij.openapi.application.ApplicationManager;
 import com.hdev.ollamaproxy.config.AppSettingsState;
-import io.javalin.Javalin;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * The one proxy of the IDE, shared by all open projects. Starting and stopping run on a
+ * pooled background thread, so neither project opening nor the EDT waits for Javalin,
+ * Jetty or the provider client to initialize.
+ */
 public class ProxyServer {
 
-    private static final AtomicReference<Javalin> serverInstance = new AtomicReference<>(null);
+    private static final AtomicReference<ProxyRuntime> serverInstance = new AtomicReference<>(null);
+    private static final AtomicBoolean starting = new AtomicBoolean(false);
+    private static final AtomicBoolean autoStartRequested = new AtomicBoolean(false);
     private static final String NOTIFICATION_GROUP = "OllamaProxy.NotificationGroup";
 
-    public static synchronized void start() {
-        if (isRunning()) {
-            showNotification("Proxy server is already running.", NotificationType.INFORMATION);
-            return;
+    public static void start() {
+        // Claimed before scheduling, so the Start action is disabled from the first click on.
+        if (starting.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().executeOnPooledThread(() -> doStart(true));
         }
+    }
 
-        AppSettingsState settings = AppSettingsState.getInstance();
-        if (settings.openAiApiKey == null || settings.openAiApiKey.trim().isEmpty()) {
-            showNotification("API Key is not set. Please configure it in Settings -> Tools -> Ollama OpenAI Proxy.", NotificationType.ERROR);
-            return;
+    /**
+     * Starts the proxy for the auto-start setting. Every opened project asks, but only the
+     * first request per IDE session does anything, and it stays quiet if the proxy already runs.
+     */
+    public static void autoStart() {
+        if (autoStartRequested.compareAndSet(false, true) && starting.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().executeOnPooledThread(() -> doStart(false));
         }
+    }
+
+    public static void stop() {
+        ApplicationManager.getApplication().executeOnPooledThread(ProxyServer::doStop);
+    }
 
+    // Runs with the starting flag claimed by the caller, and always releases it.
+    private static synchronized void doStart(boolean notifyIfRunning) {
         try {
-            OllamaProxyHandler handler = new OllamaProxyHandler();
-            Javalin app = Javalin.create().start(settings.serverPort);
-
-            // Register handlers, emulating Ollama/OpenWebUI API
-            app.get("/", ctx -> ctx.result("Ollama is running"));
-            app.head("/", ctx -> ctx.status(200));
-            app.get("/api/tags", handler::handleGetModels);
-            app.post("/api/show", handler::handleShowModel);
-            app.post("/api/chat", handler::handleChat);
-
-            serverInstance.set(app);
-            showNotification("Proxy server started on port " + settings.serverPort, NotificationType.INFORMATION);
+            if (isRunning()) {
+                if (notifyIfRunning) {
+                    showNotification("Proxy server is already running.", NotificationType.INFORMATION);
+                }
+                return;
+            }
+
+            AppSettingsState settings = AppSettingsState.getInstance();
+            if (settings.openAiApiKey == null || settings.openAiApiKey.trim().isEmpty()) {
+                showNotification("API Key is not set. Please configure it in Settings -> Tools -> Ollama OpenAI Proxy.", NotificationType.ERROR);
+                return;
+            }
+
+            ProxyRuntime runtime = new ProxyRuntime(settings.toProxyConfig());
+            runtime.start();
+
+            serverInstance.set(runtime);
+            showNotification("Proxy server started on port " + settings.serverPort
+                    + " (ready in " + runtime.getStartupTimings().getPhaseMillis().get(StartupTimings.READY) + " ms)",
+                    NotificationType.INFORMATION);
         } catch (Exception e) {
             showNotification("Failed to start proxy server: " + e.getMessage(), NotificationType.ERROR);
             e.printStackTrace();
+        } finally {
+            starting.set(false);
         }
     }
 
-    public static synchronized void stop() {
-        Javalin server = serverInstance.getAndSet(null);
+    private static synchronized void doStop() {
+        ProxyRuntime server = serverInstance.getAndSet(null);
         if (server != null) {
             server.stop();
             showNotification("Proxy server stopped.", NotificationType.INFORMATION);
@@ -58,7 +87,17 @@ public class ProxyServer {
         return serverInstance.get() != null;
     }
 
+    /** True while a start is in progress on the background thread. */
+    public static boolean isStarting() {
+        return starting.get();
+    }
+
+    /** The running proxy, or null if it is stopped. */
+    public static ProxyRuntime getRuntime() {
+        return serverInstance.get();
+    }
+
     private static void showNotification(String content, NotificationType type) {
         Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, "Ollama Proxy", content, type));
     }
-}
\ No newline at end of file
+}
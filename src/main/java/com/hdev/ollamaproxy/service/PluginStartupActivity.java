@@ -6,11 +6,12 @@ import com.hdev.ollamaproxy.config.AppSettingsState;
 import com.hdev.ollamaproxy.server.ProxyServer;
 import org.jetbrains.annotations.NotNull;
 
-public class PluginStartupActivity implements StartupActivity {
+// DumbAware so it does not wait for indexing; the proxy itself starts on a background thread.
+public class PluginStartupActivity implements StartupActivity.DumbAware {
     @Override
     public void runActivity(@NotNull Project project) {
         if (AppSettingsState.getInstance().autoStartServer) {
-            ProxyServer.start();
+            ProxyServer.autoStart();
         }
     }
-}
\ No newline at end of file
+}
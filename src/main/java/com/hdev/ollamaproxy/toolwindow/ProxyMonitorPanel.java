@@ -0,0 +1,250 @@
+package com.hdev.ollamaproxy.toolwindow;
+
+import com.hdev.ollamaproxy.server.LatencyTracker;
+import com.hdev.ollamaproxy.server.ModelMetadataCache;
+import com.hdev.ollamaproxy.server.OllamaProxyHandler;
+import com.hdev.ollamaproxy.server.ProviderClient;
+import com.hdev.ollamaproxy.server.ProxyMetrics;
+import com.hdev.ollamaproxy.server.ProxyRuntime;
+import com.hdev.ollamaproxy.server.ProxyServer;
+import com.hdev.ollamaproxy.server.StartupTimings;
+import com.intellij.openapi.Disposable;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live view of the running proxy. Every {@link #REFRESH_MILLIS} the Swing timer reads the
+ * proxy's cumulative lock-free counters and turns the difference to the previous sample into
+ * rates, so the request threads never wait on the UI and the UI never walks request state.
+ * <p>
+ * A high TTFT with idle upstream connections and low server thread usage points at the
+ * provider; growing in-flight counts with busy server threads point at the proxy.
+ */
+public class ProxyMonitorPanel extends JPanel implements Disposable {
+
+    private static final int REFRESH_MILLIS = 1000;
+    // One minute of history at the refresh rate above.
+    private static final int HISTORY_SIZE = 60;
+
+    private final JBLabel statusLabel = new JBLabel();
+    private final JBLabel upstreamLabel = new JBLabel();
+    private final JBLabel modelsLabel = new JBLabel();
+    private final JBLabel startupLabel = new JBLabel();
+    private final ModelTableModel tableModel = new ModelTableModel();
+    private final Timer timer = new Timer(REFRESH_MILLIS, e -> refresh());
+    private ProxyRuntime sampledRuntime;
+
+    public ProxyMonitorPanel() {
+        super(new BorderLayout());
+
+        JPanel summary = new JPanel(new GridLayout(0, 1));
+        summary.setBorder(JBUI.Borders.empty(6, 8));
+        summary.add(statusLabel);
+        summary.add(upstreamLabel);
+        summary.add(modelsLabel);
+        summary.add(startupLabel);
+        add(summary, BorderLayout.NORTH);
+
+        JBTable table = new JBTable(tableModel);
+        SparklineRenderer sparkline = new SparklineRenderer();
+        table.getColumnModel().getColumn(ModelTableModel.TOKENS_TREND).setCellRenderer(sparkline);
+        table.getColumnModel().getColumn(ModelTableModel.TTFT_TREND).setCellRenderer(sparkline);
+        add(new JBScrollPane(table), BorderLayout.CENTER);
+
+        refresh();
+        timer.start();
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+    }
+
+    private void refresh() {
+        ProxyRuntime runtime = ProxyServer.getRuntime();
+        if (runtime != sampledRuntime) {
+            // Counters restart with each runtime, so old history would produce bogus deltas.
+            tableModel.clear();
+            sampledRuntime = runtime;
+        }
+        OllamaProxyHandler handler = runtime != null ? runtime.getHandler() : null;
+        if (handler == null) {
+            statusLabel.setText(ProxyServer.isStarting() ? "Proxy server is starting…" : "Proxy server is stopped.");
+            upstreamLabel.setText(" ");
+            modelsLabel.setText(" ");
+            startupLabel.setText(" ");
+            tableModel.fireTableDataChanged();
+            return;
+        }
+
+        ProxyMetrics metrics = runtime.getMetrics();
+        statusLabel.setText("Running on port " + runtime.getPort()
+                + "  ·  streams in flight: " + metrics.getActiveStreams()
+                + "  ·  requests in flight: " + runtime.getInFlightRequests());
+
+        ProviderClient provider = handler.getProviderClient();
+        int connections = provider.getConnectionCount();
+        int[] threads = runtime.getServerThreadUsage();
+        upstreamLabel.setText((connections >= 0
+                ? "Upstream connections: " + connections + " (" + provider.getIdleConnectionCount() + " idle)"
+                : "Upstream connections: not reported by this provider client")
+                + (threads != null ? "  ·  server threads: " + threads[0] + " / " + threads[1] : ""));
+
+        ModelMetadataCache modelMetadata = handler.getModelMetadata();
+        long fetchAgeMillis = modelMetadata.getFetchAgeMillis();
+        modelsLabel.setText((fetchAgeMillis >= 0
+                ? "Model list fetched " + fetchAgeMillis / 1000 + " s ago"
+                : "Model list not fetched yet")
+                + "  ·  failed fetches: " + modelMetadata.getFetchFailures());
+
+        StartupTimings startupTimings = runtime.getStartupTimings();
+        startupLabel.setText(startupTimings != null ? "Startup: " + startupTimings : " ");
+
+        tableModel.sample(metrics, runtime.getLatencies(), System.nanoTime());
+    }
+
+    private static final class ModelTableModel extends AbstractTableModel {
+        static final int TOKENS_TREND = 4;
+        static final int TTFT_TREND = 6;
+
+        private static final String[] COLUMNS = {
+                "Model", "Requests", "Error rate", "Tokens/s", "Tokens/s (1 min)", "TTFT", "TTFT (1 min)", "TTFT p95"
+        };
+
+        private final Map<String, ModelHistory> histories = new LinkedHashMap<>();
+        private final List<ModelHistory> rows = new ArrayList<>();
+
+        void clear() {
+            histories.clear();
+            rows.clear();
+        }
+
+        void sample(ProxyMetrics metrics, LatencyTracker latencies, long nowNanos) {
+            // A snapshot, so the monitor never creates entries in the request path's tracker.
+            Map<String, LatencyTracker.ModelLatency> latencySnapshot = latencies != null ? latencies.snapshot() : Map.of();
+            metrics.getModels().forEach((model, counters) -> {
+                ModelHistory history = histories.get(model);
+                if (history == null) {
+                    history = new ModelHistory(model);
+                    histories.put(model, history);
+                    rows.add(history);
+                }
+                history.sample(counters, nowNanos);
+                LatencyTracker.ModelLatency latency = latencySnapshot.get(model);
+                history.ttftP95 = latency != null ? latency.ttft().percentile(0.95) : 0;
+            });
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ModelHistory row = rows.get(rowIndex);
+            return switch (columnIndex) {
+                case 0 -> row.model;
+                case 1 -> row.requests;
+                case 2 -> row.requests == 0 ? "–" : String.format("%.1f%%", 100.0 * row.errors / row.requests);
+                case 3 -> String.format("%.1f", row.tokensPerSecond.latest());
+                case TOKENS_TREND -> row.tokensPerSecond.toArray();
+                case 5 -> Double.isNaN(row.lastTtftMillis) ? "–" : String.format("%.0f ms", row.lastTtftMillis);
+                case TTFT_TREND -> row.ttftMillis.toArray();
+                case 7 -> row.ttftP95 == 0 ? "–" : "≤ " + row.ttftP95 + " ms";
+                default -> null;
+            };
+        }
+    }
+
+    /** Deltas of one model's cumulative counters between refreshes. Only touched on the EDT. */
+    private static final class ModelHistory {
+        final String model;
+        final Samples tokensPerSecond = new Samples();
+        final Samples ttftMillis = new Samples();
+        long requests;
+        long errors;
+        long ttftP95;
+        double lastTtftMillis = Double.NaN;
+
+        private long outputTokens;
+        private long ttftCount;
+        private long ttftTotalMillis;
+        private long sampledAtNanos = -1;
+
+        ModelHistory(String model) {
+            this.model = model;
+        }
+
+        void sample(ProxyMetrics.ModelCounters counters, long nowNanos) {
+            long outputTokens = counters.getOutputTokens();
+            long ttftCount = counters.getTtftCount();
+            long ttftTotalMillis = counters.getTtftMillis();
+            requests = counters.getRequests();
+            errors = counters.getErrors();
+
+            if (sampledAtNanos >= 0) {
+                double seconds = Math.max(1e-3, (nowNanos - sampledAtNanos) / 1e9);
+                tokensPerSecond.add((outputTokens - this.outputTokens) / seconds);
+                long firstTokens = ttftCount - this.ttftCount;
+                double ttft = firstTokens > 0 ? (ttftTotalMillis - this.ttftTotalMillis) / (double) firstTokens : Double.NaN;
+                ttftMillis.add(ttft);
+                if (!Double.isNaN(ttft)) {
+                    lastTtftMillis = ttft;
+                }
+            }
+            this.outputTokens = outputTokens;
+            this.ttftCount = ttftCount;
+            this.ttftTotalMillis = ttftTotalMillis;
+            this.sampledAtNanos = nowNanos;
+        }
+    }
+
+    /** Fixed-size ring of the last {@link #HISTORY_SIZE} samples. */
+    private static final class Samples {
+        private final double[] values = new double[HISTORY_SIZE];
+        private int next;
+        private int size;
+
+        void add(double value) {
+            values[next] = value;
+            next = (next + 1) % values.length;
+            size = Math.min(size + 1, values.length);
+        }
+
+        double latest() {
+            return size == 0 ? 0 : values[(next - 1 + values.length) % values.length];
+        }
+
+        /** The samples, oldest first. */
+        double[] toArray() {
+            double[] ordered = new double[size];
+            int start = (next - size + values.length) % values.length;
+            for (int i = 0; i < size; i++) {
+                ordered[i] = values[(start + i) % values.length];
+            }
+            return ordered;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.hdev.ollamaproxy.toolwindow;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import org.jetbrains.annotations.NotNull;
+
+public class ProxyToolWindowFactory implements ToolWindowFactory, DumbAware {
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        ProxyMonitorPanel panel = new ProxyMonitorPanel();
+        Content content = ContentFactory.getInstance().createContent(panel, "", false);
+        // Stops the refresh timer when the tool window (or its project) is closed.
+        content.setDisposer(panel);
+        toolWindow.getContentManager().addContent(content);
+    }
+}
@@ -0,0 +1,62 @@
+package com.hdev.ollamaproxy.toolwindow;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+
+/**
+ * Draws a {@code double[]} cell value (oldest sample first) as a small line chart scaled to
+ * its own maximum. {@code NaN} samples, such as intervals without a first token, leave a gap.
+ */
+class SparklineRenderer extends JComponent implements TableCellRenderer {
+
+    private double[] values = new double[0];
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        values = value instanceof double[] samples ? samples : new double[0];
+        setForeground(isSelected ? table.getSelectionForeground() : table.getForeground());
+        setBackground(isSelected ? table.getSelectionBackground() : table.getBackground());
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        double max = 0;
+        for (double v : values) {
+            if (!Double.isNaN(v)) max = Math.max(max, v);
+        }
+        if (values.length < 2 || max <= 0) {
+            return;
+        }
+
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(getForeground());
+            int height = getHeight() - 4;
+            double step = (getWidth() - 4) / (double) (values.length - 1);
+            int prevX = -1;
+            int prevY = -1;
+            for (int i = 0; i < values.length; i++) {
+                if (Double.isNaN(values[i])) {
+                    prevX = -1;
+                    continue;
+                }
+                int x = 2 + (int) Math.round(i * step);
+                int y = 2 + height - (int) Math.round(values[i] / max * height);
+                if (prevX >= 0) {
+                    g2.drawLine(prevX, prevY, x, y);
+                }
+                prevX = x;
+                prevY = y;
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.hdev.ollamaproxy.standalone;
+
+import com.hdev.ollamaproxy.config.ProxyConfig;
+import com.hdev.ollamaproxy.config.ServiceType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Loads a {@link ProxyConfig} for the headless launcher.
+ * <p>
+ * Values come from an optional properties file (passed as {@code --config <path>} or via
+ * {@code OLLAMA_PROXY_CONFIG}), and any {@code OLLAMA_PROXY_*} environment variable
+ * overrides the matching property. See {@code proxy.properties.example} for the keys.
+ */
+final class StandaloneConfig {
+
+    private static final String CONFIG_ENV = "OLLAMA_PROXY_CONFIG";
+
+    private StandaloneConfig() {
+    }
+
+    static ProxyConfig load(String[] args, Map<String, String> env) throws IOException {
+        Properties props = new Properties();
+        Path file = configFile(args, env);
+        if (file != null) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                props.load(reader);
+            }
+        }
+
+        ProxyConfig config = new ProxyConfig();
+        // Headless deployments serve a whole team, so give open streams time to finish.
+        config.shutdownGraceSeconds = 30;
+
+        String serviceType = value(props, env, "service.type");
+        if (serviceType != null) {
+            config.serviceType = ServiceType.valueOf(serviceType.trim().toUpperCase());
+        }
+        config.apiKey = value(props, env, "api.key", config.apiKey);
+        config.baseUrl = value(props, env, "base.url", config.baseUrl);
+        config.port = Integer.parseInt(value(props, env, "port", String.valueOf(config.port)));
+        config.contextWindowTokens = Integer.parseInt(
+                value(props, env, "context.window", String.valueOf(config.contextWindowTokens)));
+        config.trimPromptToContext = Boolean.parseBoolean(
+                value(props, env, "trim.prompt", String.valueOf(config.trimPromptToContext)));
+        config.traceSampleRate = Double.parseDouble(
+                value(props, env, "trace.sample.rate", String.valueOf(config.traceSampleRate)));
+        config.traceIncludeContent = Boolean.parseBoolean(
+                value(props, env, "trace.include.content", String.valueOf(config.traceIncludeContent)));
+        config.traceDirectory = value(props, env, "trace.dir", config.traceDirectory);
+        if (config.traceDirectory != null && config.traceDirectory.isBlank()) {
+            config.traceDirectory = null;
+        }
+        config.modelCacheTtlSeconds = Long.parseLong(
+                value(props, env, "model.cache.ttl.seconds", String.valueOf(config.modelCacheTtlSeconds)));
+        config.stallMultiplier = Double.parseDouble(
+                value(props, env, "stall.multiplier", String.valueOf(config.stallMultiplier)));
+        config.shutdownGraceSeconds = Integer.parseInt(
+                value(props, env, "shutdown.grace.seconds", String.valueOf(config.shutdownGraceSeconds)));
+
+        // Format: tenant=key entries separated by commas, e.g. "alice=k1,ci=k2".
+        String clientKeys = value(props, env, "client.keys");
+        if (clientKeys != null) {
+            for (String entry : clientKeys.split(",")) {
+                if (entry.isBlank()) continue;
+                int eq = entry.indexOf('=');
+                if (eq <= 0 || eq == entry.length() - 1) {
+                    throw new IllegalArgumentException("Invalid client.keys entry: " + entry.trim());
+                }
+                config.clientKeys.put(entry.substring(eq + 1).trim(), entry.substring(0, eq).trim());
+            }
+        }
+
+        config.adminKey = value(props, env, "admin.key", config.adminKey);
+
+        if (config.apiKey == null || config.apiKey.isBlank()) {
+            throw new IllegalArgumentException("api.key (or OLLAMA_PROXY_API_KEY) is not set");
+        }
+        return config;
+    }
+
+    private static Path configFile(String[] args, Map<String, String> env) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if ("--config".equals(args[i])) {
+                return Path.of(args[i + 1]);
+            }
+        }
+        String fromEnv = env.get(CONFIG_ENV);
+        return fromEnv != null && !fromEnv.isBlank() ? Path.of(fromEnv) : null;
+    }
+
+    private static String value(Properties props, Map<String, String> env, String key) {
+        // "base.url" -> "OLLAMA_PROXY_BASE_URL"
+        String envKey = "OLLAMA_PROXY_" + key.replace('.', '_').toUpperCase();
+        String fromEnv = env.get(envKey);
+        if (fromEnv != null && !fromEnv.isBlank()) {
+            return fromEnv;
+        }
+        return props.getProperty(key);
+    }
+
+    private static String value(Properties props, Map<String, String> env, String key, String defaultValue) {
+        String value = value(props, env, key);
+        return value != null ? value.trim() : defaultValue;
+    }
+}
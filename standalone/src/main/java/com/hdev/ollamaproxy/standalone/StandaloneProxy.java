@@ -0,0 +1,36 @@
+package com.hdev.ollamaproxy.standalone;
+
+import com.hdev.ollamaproxy.config.ProxyConfig;
+import com.hdev.ollamaproxy.server.ProxyRuntime;
+
+import java.util.logging.Logger;
+
+/**
+ * Headless entry point: runs the same proxy as the plugin, without an IDE, so a single
+ * warm instance (shared caches and upstream connections) can serve a whole team.
+ */
+public final class StandaloneProxy {
+    private static final Logger LOG = Logger.getLogger(StandaloneProxy.class.getName());
+
+    private StandaloneProxy() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ProxyConfig config;
+        try {
+            config = StandaloneConfig.load(args, System.getenv());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid proxy configuration: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        ProxyRuntime runtime = new ProxyRuntime(config);
+        runtime.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(runtime::stop, "ollama-proxy-shutdown"));
+
+        LOG.info("Proxy server started on port " + config.port + " for " + config.serviceType
+                + (config.clientKeys.isEmpty() ? " (no client authentication)"
+                : " (" + config.clientKeys.size() + " client key(s))"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.hdev.ollamaproxy.standalone;
+
+import com.hdev.ollamaproxy.config.ProxyConfig;
+import com.hdev.ollamaproxy.config.ServiceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StandaloneConfigTest {
+
+    private static final String[] NO_ARGS = new String[0];
+
+    @Test
+    void readsThePropertiesFileGivenOnTheCommandLine(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("proxy.properties");
+        Files.writeString(file, String.join("\n",
+                "service.type=open_webui",
+                "api.key=from-file",
+                "base.url=http://localhost:3000/",
+                "port=12000",
+                "trace.dir=",
+                "admin.key=adm"));
+
+        ProxyConfig config = StandaloneConfig.load(new String[]{"--config", file.toString()}, Map.of());
+
+        assertEquals(ServiceType.OPEN_WEBUI, config.serviceType);
+        assertEquals("from-file", config.apiKey);
+        assertEquals("http://localhost:3000/", config.baseUrl);
+        assertEquals(12000, config.port);
+        assertNull(config.traceDirectory);
+        assertEquals("adm", config.adminKey);
+        assertEquals(30, config.shutdownGraceSeconds);
+    }
+
+    @Test
+    void environmentOverridesTheFile(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("proxy.properties");
+        Files.writeString(file, "api.key=from-file\nport=12000\nstall.multiplier=5\n");
+
+        ProxyConfig config = StandaloneConfig.load(NO_ARGS, Map.of(
+                "OLLAMA_PROXY_CONFIG", file.toString(),
+                "OLLAMA_PROXY_API_KEY", "from-env",
+                "OLLAMA_PROXY_STALL_MULTIPLIER", "3.5",
+                // Blank variables do not override.
+                "OLLAMA_PROXY_PORT", " "));
+
+        assertEquals("from-env", config.apiKey);
+        assertEquals(3.5, config.stallMultiplier);
+        assertEquals(12000, config.port);
+    }
+
+    @Test
+    void parsesClientKeysAsTenantKeyPairs() throws Exception {
+        ProxyConfig config = StandaloneConfig.load(NO_ARGS, Map.of(
+                "OLLAMA_PROXY_API_KEY", "k",
+                "OLLAMA_PROXY_CLIENT_KEYS", " alice = k1 ,ci=k2,,"));
+
+        assertEquals(Map.of("k1", "alice", "k2", "ci"), config.clientKeys);
+    }
+
+    @Test
+    void rejectsMalformedClientKeys() {
+        for (String keys : new String[]{"alice", "=k1", "alice="}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> StandaloneConfig.load(NO_ARGS, Map.of(
+                            "OLLAMA_PROXY_API_KEY", "k",
+                            "OLLAMA_PROXY_CLIENT_KEYS", keys)));
+            assertTrue(e.getMessage().contains("client.keys"), e.getMessage());
+        }
+    }
+
+    @Test
+    void requiresAnApiKey() {
+        assertThrows(IllegalArgumentException.class, () -> StandaloneConfig.load(NO_ARGS, Map.of()));
+    }
+}